@@ -15,14 +15,18 @@ import com.velocitypowered.api.proxy.config.ProxyConfig;
 import com.velocitypowered.api.proxy.messages.ChannelRegistrar;
 import com.velocitypowered.api.proxy.player.Player;
 import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import com.velocitypowered.api.proxy.player.ResourcePackStatistics;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import com.velocitypowered.api.scheduler.Scheduler;
 import com.velocitypowered.api.util.ProxyVersion;
 import java.net.SocketAddress;
+import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import net.kyori.adventure.audience.Audience;
 
 /**
@@ -222,4 +226,46 @@ public interface ProxyServer extends Audience {
    * @return a ResourcePackInfo builder
    */
   ResourcePackInfo.Builder createResourcePackBuilder(String url);
+
+  /**
+   * Creates a builder for a resource pack served by the proxy's built-in resource pack server,
+   * referenced by its ID. The builder already has the pack's download URL and SHA-1 hash set.
+   *
+   * @param id the ID of the pack, which is its file name without the {@code .zip} extension
+   * @return a ResourcePackInfo builder, or an empty {@link Optional} if the resource pack server
+   *         is disabled or has no pack with that ID
+   */
+  Optional<ResourcePackInfo.Builder> createLocalResourcePackBuilder(String id);
+
+  /**
+   * Merges several resource packs into one, for clients that can only apply a single pack at a
+   * time. The merged pack is served by the proxy's built-in resource pack server, and each
+   * combination of packs is only merged once. Files in packs later in the list replace files with
+   * the same name in packs earlier in the list.
+   *
+   * @param packs the packs to merge, in ascending order of precedence
+   * @return a future with a builder for the merged pack, with its download URL and SHA-1 hash
+   *         already set, which completes exceptionally if the resource pack server is disabled or
+   *         the packs could not be merged
+   */
+  CompletableFuture<ResourcePackInfo.Builder> mergeResourcePacks(List<ResourcePackInfo> packs);
+
+  /**
+   * Computes the SHA-1 hash of a resource pack stored on disk, for use with
+   * {@link ResourcePackInfo.Builder#hash(byte[])}. The file is hashed in the background, and the
+   * hash is remembered across restarts until the size or modification time of the file changes.
+   *
+   * @param file the resource pack file
+   * @return a future with the hash of the file, which completes exceptionally if the file can't
+   *         be read
+   */
+  CompletableFuture<byte[]> computeResourcePackHash(Path file);
+
+  /**
+   * Returns statistics about how resource packs were delivered to players, grouped by the host
+   * the packs are downloaded from.
+   *
+   * @return the resource pack delivery statistics of each host
+   */
+  Collection<ResourcePackStatistics> resourcePackStatistics();
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * The Velocity API is licensed under the terms of the MIT License. For more details,
+ * reference the LICENSE file in the api top-level directory.
+ */
+
+package com.velocitypowered.api.proxy.player;
+
+import java.time.Duration;
+
+/**
+ * Statistics about how the resource packs hosted on a single host were delivered to players since
+ * the proxy started. Times are recorded in buckets, so percentiles are approximate.
+ */
+public interface ResourcePackStatistics {
+
+  /**
+   * Returns the host the resource packs were downloaded from.
+   *
+   * @return the host name
+   */
+  String host();
+
+  /**
+   * Returns how many times a pack from this host was offered to a player.
+   *
+   * @return the number of offers
+   */
+  long offered();
+
+  /**
+   * Returns how many offers players accepted.
+   *
+   * @return the number of accepted offers
+   */
+  long accepted();
+
+  /**
+   * Returns how many offers players declined.
+   *
+   * @return the number of declined offers
+   */
+  long declined();
+
+  /**
+   * Returns how many packs players downloaded and applied successfully.
+   *
+   * @return the number of successful downloads
+   */
+  long successful();
+
+  /**
+   * Returns how many packs players failed to download.
+   *
+   * @return the number of failed downloads
+   */
+  long failedDownloads();
+
+  /**
+   * Returns the fraction of answered offers that players declined.
+   *
+   * @return the decline rate, between 0 and 1
+   */
+  default double declineRate() {
+    long answered = accepted() + declined();
+    return answered == 0 ? 0 : (double) declined() / answered;
+  }
+
+  /**
+   * Returns the fraction of finished downloads that failed.
+   *
+   * @return the failure rate, between 0 and 1
+   */
+  default double failureRate() {
+    long finished = successful() + failedDownloads();
+    return finished == 0 ? 0 : (double) failedDownloads() / finished;
+  }
+
+  /**
+   * Returns the time players took to answer an offer, at the specified percentile.
+   *
+   * @param percentile the percentile, between 0 and 1
+   * @return the approximate response time
+   */
+  Duration responseTime(double percentile);
+
+  /**
+   * Returns the time players took to download and apply a pack after accepting it, at the
+   * specified percentile.
+   *
+   * @param percentile the percentile, between 0 and 1
+   * @return the approximate download time
+   */
+  Duration downloadTime(double percentile);
+}
@@ -50,4 +50,29 @@ public interface RegisteredServer extends ChannelMessageSink, Audience {
    * @since 3.2.0
    */
   CompletableFuture<ServerPing> ping(PingOptions pingOptions);
+
+  /**
+   * Returns whether resource packs requested by this server are skipped when the player has
+   * already applied the same pack. When skipped, the proxy answers the server as if the player
+   * had accepted and loaded the pack again.
+   *
+   * @return whether resource pack deduplication is enabled for this server
+   * @since 5.0.0
+   */
+  default boolean isResourcePackDeduplicationEnabled() {
+    return false;
+  }
+
+  /**
+   * Overrides whether resource packs requested by this server are skipped when the player has
+   * already applied the same pack. By default, the proxy configuration decides.
+   *
+   * @param enabled whether resource pack deduplication should be enabled for this server
+   * @throws UnsupportedOperationException if this server does not support resource pack
+   *     deduplication
+   * @since 5.0.0
+   */
+  default void setResourcePackDeduplicationEnabled(boolean enabled) {
+    throw new UnsupportedOperationException("Resource pack deduplication is not supported");
+  }
 }
@@ -27,6 +27,7 @@ import java.nio.ByteBuffer;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Implements deflate compression by wrapping {@link Deflater} and {@link Inflater}.
@@ -36,12 +37,11 @@ public class JavaVelocityCompressor implements VelocityCompressor {
   public static final VelocityCompressorFactory FACTORY = JavaVelocityCompressor::new;
 
   private final Deflater deflater;
-  private final Inflater inflater;
+  private @Nullable Inflater inflater;
   private boolean disposed = false;
 
   private JavaVelocityCompressor(int level) {
     this.deflater = new Deflater(level);
-    this.inflater = new Inflater();
   }
 
   @Override
@@ -53,6 +53,12 @@ public class JavaVelocityCompressor implements VelocityCompressor {
     checkArgument(source.nioBufferCount() == 1, "source has multiple backing buffers");
     checkArgument(destination.nioBufferCount() == 1, "destination has multiple backing buffers");
 
+    Inflater inflater = this.inflater;
+    if (inflater == null) {
+      inflater = new Inflater();
+      this.inflater = inflater;
+    }
+
     final int origIdx = source.readerIndex();
     inflater.setInput(source.nioBuffer());
 
@@ -90,26 +96,33 @@ public class JavaVelocityCompressor implements VelocityCompressor {
     deflater.setInput(source.nioBuffer());
     deflater.finish();
 
-    while (!deflater.finished()) {
-      if (!destination.isWritable()) {
-        destination.ensureWritable(ZLIB_BUFFER_SIZE);
+    try {
+      while (!deflater.finished()) {
+        if (!destination.isWritable()) {
+          destination.ensureWritable(ZLIB_BUFFER_SIZE);
+        }
+
+        ByteBuffer destNioBuf = destination.nioBuffer(destination.writerIndex(),
+            destination.writableBytes());
+        int produced = deflater.deflate(destNioBuf);
+        destination.writerIndex(destination.writerIndex() + produced);
       }
 
-      ByteBuffer destNioBuf = destination.nioBuffer(destination.writerIndex(),
-          destination.writableBytes());
-      int produced = deflater.deflate(destNioBuf);
-      destination.writerIndex(destination.writerIndex() + produced);
+      source.readerIndex(origIdx + deflater.getTotalIn());
+    } finally {
+      // The compressor is shared by every connection on the event loop, so a failure here must
+      // not leave it half-way through a stream.
+      deflater.reset();
     }
-
-    source.readerIndex(origIdx + deflater.getTotalIn());
-    deflater.reset();
   }
 
   @Override
   public void close() {
     disposed = true;
     deflater.end();
-    inflater.end();
+    if (inflater != null) {
+      inflater.end();
+    }
   }
 
   private void ensureNotDisposed() {
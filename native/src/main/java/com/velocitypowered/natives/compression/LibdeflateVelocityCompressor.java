@@ -29,7 +29,7 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
 
   public static final VelocityCompressorFactory FACTORY = LibdeflateVelocityCompressor::new;
 
-  private final long inflateCtx;
+  private long inflateCtx;
   private final long deflateCtx;
   private boolean disposed = false;
 
@@ -39,7 +39,8 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
       throw new IllegalArgumentException("Invalid compression level " + level);
     }
 
-    this.inflateCtx = NativeZlibInflate.init();
+    // Most connections never decompress anything large enough to be compressed, so the inflate
+    // context is only allocated once it is first needed.
     this.deflateCtx = NativeZlibDeflate.init(correctedLevel);
   }
 
@@ -52,6 +53,9 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
     // those parameters. If the uncompressed size doesn't match the compressed size, then we will
     // throw an exception from native code.
     destination.ensureWritable(uncompressedSize);
+    if (inflateCtx == 0) {
+      inflateCtx = NativeZlibInflate.init();
+    }
 
     long sourceAddress = source.memoryAddress() + source.readerIndex();
     long destinationAddress = destination.memoryAddress() + destination.writerIndex();
@@ -90,7 +94,9 @@ public class LibdeflateVelocityCompressor implements VelocityCompressor {
   @Override
   public void close() {
     if (!disposed) {
-      NativeZlibInflate.free(inflateCtx);
+      if (inflateCtx != 0) {
+        NativeZlibInflate.free(inflateCtx);
+      }
       NativeZlibDeflate.free(deflateCtx);
     }
     disposed = true;
@@ -4,6 +4,7 @@ plugins {
     application
     id("velocity-init-manifest")
     alias(libs.plugins.shadow)
+    alias(libs.plugins.jmh)
 }
 
 application {
@@ -104,6 +105,9 @@ dependencies {
     implementation(libs.netty.transport.native.kqueue)
     implementation(variantOf(libs.netty.transport.native.kqueue) { classifier("osx-x86_64") })
     implementation(variantOf(libs.netty.transport.native.kqueue) { classifier("osx-aarch_64") })
+    implementation(libs.netty.transport.native.iouring)
+    implementation(variantOf(libs.netty.transport.native.iouring) { classifier("linux-x86_64") })
+    implementation(variantOf(libs.netty.transport.native.iouring) { classifier("linux-aarch_64") })
 
     implementation(libs.jopt)
     implementation(libs.terminalconsoleappender)
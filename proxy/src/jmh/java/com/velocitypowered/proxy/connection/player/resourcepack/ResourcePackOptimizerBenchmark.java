@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ResourcePackOptimizer} on a generated pack made of pretty-printed models, lang
+ * files, incompressible textures and the metadata files archivers tend to leave behind, stored
+ * without compression. Besides the time per operation, JMH reports the time per megabyte of input
+ * as {@code processedMegabytes} and the bytes each operation saves as {@code savedBytes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourcePackOptimizerBenchmark {
+
+  @Param({"500", "5000"})
+  public int models;
+
+  private Path directory;
+  private Path pack;
+  private long packSize;
+
+  /**
+   * Counts the input processed. As an operations counter in average time mode, JMH reports it as
+   * the time per megabyte.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Processed {
+
+    public double processedMegabytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      processedMegabytes = 0;
+    }
+  }
+
+  /**
+   * Holds how many bytes the last operation saved, which JMH reports as is.
+   */
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Saved {
+
+    public long savedBytes;
+  }
+
+  /**
+   * Generates the pack to optimize.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("velocity-optimizer-benchmark");
+    pack = directory.resolve("pack.zip");
+    Random random = new Random(1);
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(pack))) {
+      zip.setLevel(0);
+      put(zip, "pack.mcmeta", "{\n  \"pack\": {\n    \"pack_format\": 15,\n"
+          + "    \"description\": \"Benchmark\"\n  }\n}\n");
+      StringBuilder lang = new StringBuilder("{\n");
+      for (int i = 0; i < models; i++) {
+        put(zip, "assets/benchmark/models/item/item_" + i + ".json", "{\n"
+            + "    \"parent\": \"minecraft:item/generated\",\n"
+            + "    \"textures\": {\n"
+            + "        \"layer0\": \"benchmark:item/item_" + i + "\"\n"
+            + "    }\n"
+            + "}\n");
+        lang.append("  \"item.benchmark.item_").append(i).append("\": \"Item ").append(i)
+            .append("\",\n");
+
+        byte[] texture = new byte[512 + random.nextInt(2048)];
+        random.nextBytes(texture);
+        zip.putNextEntry(new ZipEntry("assets/benchmark/textures/item/item_" + i + ".png"));
+        zip.write(texture);
+        zip.closeEntry();
+        if (i % 10 == 0) {
+          put(zip, "__MACOSX/assets/benchmark/textures/item/._item_" + i + ".png", "metadata");
+        }
+      }
+      lang.append("  \"item.benchmark.last\": \"Last\"\n}\n");
+      put(zip, "assets/benchmark/lang/en_us.json", lang.toString());
+      put(zip, ".DS_Store", "metadata");
+    }
+    packSize = Files.size(pack);
+  }
+
+  /**
+   * Removes the generated pack.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(pack);
+    Files.deleteIfExists(directory);
+  }
+
+  @Benchmark
+  public long optimize(Processed processed, Saved saved) throws IOException {
+    CountingOutputStream out = new CountingOutputStream();
+    ResourcePackOptimizer.optimize(pack, out);
+    processed.processedMegabytes += packSize / 1048576.0;
+    saved.savedBytes = packSize - out.count;
+    return out.count;
+  }
+
+  private static void put(ZipOutputStream zip, String name, String contents)
+      throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(contents.getBytes(StandardCharsets.UTF_8));
+    zip.closeEntry();
+  }
+
+  private static final class CountingOutputStream extends OutputStream {
+
+    private long count;
+
+    @Override
+    public void write(int b) {
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      count += len;
+    }
+  }
+}
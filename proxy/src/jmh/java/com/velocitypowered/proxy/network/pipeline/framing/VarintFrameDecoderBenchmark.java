@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.framing;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.ByteProcessor;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link MinecraftVarintFrameDecoder} against the previous {@link ByteProcessor}-based
+ * implementation on a buffer holding {@value #FRAMES} frames of a given size mix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VarintFrameDecoderBenchmark {
+
+  private static final int FRAMES = 1024;
+
+  /**
+   * Frame size distributions, as {weight, minimum size, maximum size} buckets.
+   */
+  public enum FrameMix {
+    /**
+     * Serverbound play traffic: mostly movement and animation packets.
+     */
+    SERVERBOUND(new int[][] {{85, 4, 40}, {14, 40, 128}, {1, 128, 1024}}),
+    /**
+     * Clientbound play traffic: entity updates interleaved with metadata, chunks and light.
+     */
+    CLIENTBOUND(new int[][] {{50, 8, 64}, {35, 64, 1024}, {12, 1024, 8192}, {3, 8192, 65536}}),
+    /**
+     * Joining or teleporting: dominated by chunk data.
+     */
+    CHUNKS(new int[][] {{20, 8, 128}, {80, 8192, 131072}});
+
+    private final int[][] buckets;
+
+    FrameMix(int[][] buckets) {
+      this.buckets = buckets;
+    }
+
+    int nextSize(Random random) {
+      int total = 0;
+      for (int[] bucket : buckets) {
+        total += bucket[0];
+      }
+      int pick = random.nextInt(total);
+      for (int[] bucket : buckets) {
+        if (pick < bucket[0]) {
+          return bucket[1] + random.nextInt(bucket[2] - bucket[1]);
+        }
+        pick -= bucket[0];
+      }
+      throw new AssertionError();
+    }
+  }
+
+  @Param
+  public FrameMix mix;
+
+  private ByteBuf frames;
+  private final List<Object> out = new ArrayList<>(FRAMES);
+  private EmbeddedChannel channel;
+  private MinecraftVarintFrameDecoder current;
+  private ChannelHandlerContext currentCtx;
+  private LegacyVarintFrameDecoder legacy;
+  private ChannelHandlerContext legacyCtx;
+
+  /**
+   * Builds the frames and the channel the decoders are attached to.
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(42);
+    frames = Unpooled.directBuffer();
+    for (int i = 0; i < FRAMES; i++) {
+      int size = mix.nextSize(random);
+      writeVarInt(frames, size);
+      byte[] data = new byte[size];
+      random.nextBytes(data);
+      frames.writeBytes(data);
+    }
+
+    current = new MinecraftVarintFrameDecoder();
+    legacy = new LegacyVarintFrameDecoder();
+    channel = new EmbeddedChannel(current, legacy);
+    currentCtx = channel.pipeline().context(current);
+    legacyCtx = channel.pipeline().context(legacy);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    frames.release();
+    channel.finishAndReleaseAll();
+  }
+
+  @Benchmark
+  public int current() {
+    return decodeAll(current, currentCtx);
+  }
+
+  @Benchmark
+  public int legacy() {
+    return decodeAll(legacy, legacyCtx);
+  }
+
+  private int decodeAll(ByteToMessageDecoder decoder, ChannelHandlerContext ctx) {
+    ByteBuf in = frames.duplicate();
+    // Mirror ByteToMessageDecoder.callDecode(), which keeps calling decode() while it makes
+    // progress.
+    while (in.isReadable()) {
+      int readerIndex = in.readerIndex();
+      try {
+        if (decoder == current) {
+          current.decode(ctx, in, out);
+        } else {
+          legacy.decode(ctx, in, out);
+        }
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+      if (in.readerIndex() == readerIndex) {
+        break;
+      }
+    }
+
+    int decoded = out.size();
+    for (Object frame : out) {
+      ReferenceCountUtil.release(frame);
+    }
+    out.clear();
+    return decoded;
+  }
+
+  private static void writeVarInt(ByteBuf buf, int value) {
+    while ((value & ~0x7F) != 0) {
+      buf.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buf.writeByte(value);
+  }
+
+  /**
+   * The frame decoder as it was before it was rewritten to scan the length with a single read.
+   */
+  static class LegacyVarintFrameDecoder extends ByteToMessageDecoder {
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+      if (!ctx.channel().isActive()) {
+        in.clear();
+        return;
+      }
+
+      final VarintByteDecoder reader = new VarintByteDecoder();
+
+      int varintEnd = in.forEachByte(reader);
+      if (varintEnd == -1) {
+        if (reader.result == DecodeResult.RUN_OF_ZEROES) {
+          in.clear();
+        }
+        return;
+      }
+
+      if (reader.result == DecodeResult.RUN_OF_ZEROES) {
+        in.readerIndex(varintEnd);
+      } else if (reader.result == DecodeResult.SUCCESS) {
+        int readVarint = reader.readVarint;
+        int bytesRead = reader.bytesRead;
+        if (readVarint < 0) {
+          in.clear();
+          throw new IllegalStateException("Bad packet length");
+        } else if (readVarint == 0) {
+          in.readerIndex(varintEnd + 1);
+        } else {
+          int minimumRead = bytesRead + readVarint;
+          if (in.isReadable(minimumRead)) {
+            out.add(in.retainedSlice(varintEnd + 1, readVarint));
+            in.skipBytes(minimumRead);
+          }
+        }
+      } else if (reader.result == DecodeResult.TOO_BIG) {
+        in.clear();
+        throw new IllegalStateException("VarInt too big");
+      }
+    }
+  }
+
+  static class VarintByteDecoder implements ByteProcessor {
+
+    private int readVarint;
+    private int bytesRead;
+    private DecodeResult result = DecodeResult.TOO_SHORT;
+
+    @Override
+    public boolean process(byte k) {
+      if (k == 0 && bytesRead == 0) {
+        result = DecodeResult.RUN_OF_ZEROES;
+        return true;
+      }
+      if (result == DecodeResult.RUN_OF_ZEROES) {
+        return false;
+      }
+      readVarint |= (k & 0x7F) << bytesRead++ * 7;
+      if (bytesRead > 3) {
+        result = DecodeResult.TOO_BIG;
+        return false;
+      }
+      if ((k & 0x80) != 128) {
+        result = DecodeResult.SUCCESS;
+        return false;
+      }
+      return true;
+    }
+  }
+
+  enum DecodeResult {
+    SUCCESS,
+    TOO_SHORT,
+    TOO_BIG,
+    RUN_OF_ZEROES
+  }
+}
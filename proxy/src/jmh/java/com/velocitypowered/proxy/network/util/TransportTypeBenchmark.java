@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.util;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.kqueue.KQueue;
+import io.netty.incubator.channel.uring.IOUring;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@link TransportType}s over loopback. Each invocation sends one message on every
+ * client connection to an echo server and waits for all of the echoes, so throughput is reported
+ * in rounds per second and the sample mode gives the latency distribution of a round.
+ *
+ * <p>Transports that are not available on the machine running the benchmark fail their setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransportTypeBenchmark {
+
+  private static final long ROUND_TIMEOUT_SECONDS = 10;
+
+  @Param({"NIO", "EPOLL", "IO_URING"})
+  public TransportType transport;
+
+  @Param({"64", "1024"})
+  public int connections;
+
+  @Param({"64", "4096"})
+  public int messageSize;
+
+  private EventLoopGroup bossGroup;
+  private EventLoopGroup serverWorkerGroup;
+  private EventLoopGroup clientWorkerGroup;
+  private Channel serverChannel;
+  private final List<Channel> clients = new ArrayList<>();
+  private ByteBuf message;
+  private volatile CountDownLatch round;
+
+  /**
+   * Starts the echo server and connects the clients.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    if (!isAvailable(transport)) {
+      throw new IllegalStateException(transport + " is not available on this system");
+    }
+
+    bossGroup = transport.createEventLoopGroup(TransportType.Type.BOSS);
+    serverWorkerGroup = transport.createEventLoopGroup(TransportType.Type.WORKER);
+    clientWorkerGroup = transport.createEventLoopGroup(TransportType.Type.WORKER);
+
+    InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    serverChannel = new ServerBootstrap()
+        .channelFactory(transport.getServerChannelFactory(address))
+        .group(bossGroup, serverWorkerGroup)
+        .option(ChannelOption.SO_BACKLOG, connections)
+        .childOption(ChannelOption.TCP_NODELAY, true)
+        .childHandler(new EchoHandler())
+        .bind(address)
+        .sync()
+        .channel();
+
+    Bootstrap bootstrap = new Bootstrap()
+        .channelFactory(transport.getClientChannelFactory(address))
+        .group(clientWorkerGroup)
+        .option(ChannelOption.TCP_NODELAY, true)
+        .handler(new ChannelInboundHandlerAdapter());
+    for (int i = 0; i < connections; i++) {
+      Channel channel = bootstrap.connect(serverChannel.localAddress()).sync().channel();
+      channel.pipeline().addLast(new RoundHandler());
+      clients.add(channel);
+    }
+
+    message = Unpooled.directBuffer(messageSize).writeZero(messageSize);
+  }
+
+  /**
+   * Closes every connection and shuts the event loops down.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (Channel client : clients) {
+      client.close().syncUninterruptibly();
+    }
+    clients.clear();
+    if (serverChannel != null) {
+      serverChannel.close().syncUninterruptibly();
+    }
+    for (EventLoopGroup group : new EventLoopGroup[] {clientWorkerGroup, serverWorkerGroup,
+        bossGroup}) {
+      if (group != null) {
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+      }
+    }
+    if (message != null) {
+      message.release();
+    }
+  }
+
+  @Benchmark
+  public void echoRound() throws Exception {
+    CountDownLatch latch = new CountDownLatch(connections);
+    round = latch;
+    for (Channel client : clients) {
+      client.writeAndFlush(message.retainedDuplicate(), client.voidPromise());
+    }
+    if (!latch.await(ROUND_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      throw new TimeoutException("Only " + (connections - latch.getCount()) + " of "
+          + connections + " echoes arrived");
+    }
+  }
+
+  private static boolean isAvailable(TransportType type) {
+    switch (type) {
+      case EPOLL:
+        return Epoll.isAvailable();
+      case KQUEUE:
+        return KQueue.isAvailable();
+      case IO_URING:
+        return IOUring.isAvailable();
+      default:
+        return true;
+    }
+  }
+
+  @ChannelHandler.Sharable
+  private static final class EchoHandler extends ChannelInboundHandlerAdapter {
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      ctx.write(msg, ctx.voidPromise());
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+      ctx.flush();
+    }
+  }
+
+  private final class RoundHandler extends ChannelInboundHandlerAdapter {
+
+    private int received;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      ByteBuf buf = (ByteBuf) msg;
+      try {
+        received += buf.readableBytes();
+        while (received >= messageSize) {
+          received -= messageSize;
+          round.countDown();
+        }
+      } finally {
+        buf.release();
+      }
+    }
+  }
+}
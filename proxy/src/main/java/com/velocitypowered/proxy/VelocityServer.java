@@ -31,6 +31,7 @@ import com.velocitypowered.api.plugin.PluginManager;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.player.Player;
 import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import com.velocitypowered.api.proxy.player.ResourcePackStatistics;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import com.velocitypowered.api.util.Favicon;
@@ -45,11 +46,23 @@ import com.velocitypowered.proxy.command.builtin.VelocityCommand;
 import com.velocitypowered.proxy.config.VelocityConfiguration;
 import com.velocitypowered.proxy.connection.client.ConnectedPlayer;
 import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackDeclineCache;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackDirectory;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackHashResolver;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackHasher;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackHttpServer;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackMerger;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackOptimizer;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackPrefetcher;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackQueuePolicy;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackTelemetry;
 import com.velocitypowered.proxy.connection.util.ServerListPingHandler;
 import com.velocitypowered.proxy.console.VelocityConsole;
 import com.velocitypowered.proxy.crypto.EncryptionUtils;
+import com.velocitypowered.proxy.crypto.LoginCryptoExecutor;
 import com.velocitypowered.proxy.event.VelocityEventManager;
 import com.velocitypowered.proxy.network.ConnectionManager;
+import com.velocitypowered.proxy.network.pipeline.compression.CompressionOffloadExecutor;
 import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
 import com.velocitypowered.proxy.network.protocol.util.FaviconSerializer;
 import com.velocitypowered.proxy.network.protocol.util.GameProfileSerializer;
@@ -61,6 +74,7 @@ import com.velocitypowered.proxy.util.ClosestLocaleMatcher;
 import com.velocitypowered.proxy.util.ResourceUtils;
 import com.velocitypowered.proxy.util.VelocityChannelRegistrar;
 import com.velocitypowered.proxy.util.bossbar.AdventureBossBarManager;
+import com.velocitypowered.proxy.util.concurrent.VelocityNettyThreadFactory;
 import com.velocitypowered.proxy.util.ratelimit.Ratelimiter;
 import com.velocitypowered.proxy.util.ratelimit.Ratelimiters;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -68,6 +82,8 @@ import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
@@ -75,8 +91,10 @@ import java.net.SocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.KeyPair;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -111,6 +129,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public class VelocityServer implements ProxyServer, ForwardingAudience {
 
   private static final Logger logger = LogManager.getLogger(VelocityServer.class);
+  private static final String RESOURCE_PACK_HASH_INDEX = "hashes.idx";
   public static final Gson GENERAL_GSON = new GsonBuilder()
       .registerTypeHierarchyAdapter(Favicon.class, FaviconSerializer.INSTANCE)
       .registerTypeHierarchyAdapter(GameProfile.class, GameProfileSerializer.INSTANCE)
@@ -129,6 +148,15 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
       .create();
 
   private final ConnectionManager cm;
+  private final ResourcePackHashResolver resourcePackHashResolver;
+  private final ResourcePackQueuePolicy resourcePackQueuePolicy = new ResourcePackQueuePolicy();
+  private final ResourcePackPrefetcher resourcePackPrefetcher;
+  private final ResourcePackTelemetry resourcePackTelemetry = new ResourcePackTelemetry();
+  private final ResourcePackHasher resourcePackHasher = new ResourcePackHasher();
+  private @MonotonicNonNull ResourcePackDeclineCache resourcePackDeclineCache;
+  private final HashedWheelTimer resourcePackTimer = new HashedWheelTimer(
+      new VelocityNettyThreadFactory("Velocity Resource Pack Timer #%d"), 1, TimeUnit.SECONDS);
+  private @Nullable ResourcePackHttpServer resourcePackServer;
   private final ProxyOptions options;
   private @MonotonicNonNull VelocityConfiguration configuration;
   private @MonotonicNonNull KeyPair serverKeyPair;
@@ -155,6 +183,8 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
     scheduler = new VelocityScheduler(pluginManager);
     console = new VelocityConsole(this);
     cm = new ConnectionManager(this);
+    resourcePackHashResolver = new ResourcePackHashResolver(cm.getHttpClient());
+    resourcePackPrefetcher = new ResourcePackPrefetcher(this);
     servers = new ServerMap(this);
     serverListPingHandler = new ServerListPingHandler(this);
     this.options = options;
@@ -224,6 +254,24 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
       servers.register(new ServerInfo(entry.getKey(), AddressUtil.parseAddress(entry.getValue())));
     }
 
+    Path hashIndex = Path.of(configuration.getResourcePackMergeCacheDirectory())
+        .resolve(RESOURCE_PACK_HASH_INDEX);
+    try {
+      resourcePackHasher.load(hashIndex);
+    } catch (IOException e) {
+      logger.error("Unable to load resource pack hashes from {}", hashIndex, e);
+    }
+    resourcePackDeclineCache = new ResourcePackDeclineCache(
+        Duration.ofMinutes(configuration.getRememberResourcePackDeclines()));
+    if (!configuration.getResourcePackDeclineSnapshot().isEmpty()) {
+      Path snapshot = Path.of(configuration.getResourcePackDeclineSnapshot());
+      try {
+        resourcePackDeclineCache.load(snapshot);
+      } catch (IOException e) {
+        logger.error("Unable to load remembered resource pack declines from {}", snapshot, e);
+      }
+    }
+
     ipAttemptLimiter = Ratelimiters.createWithMilliseconds(configuration.getLoginRatelimit());
     loadPlugins();
 
@@ -248,9 +296,50 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
           configuration.getQueryPort());
     }
 
+    if (!configuration.getResourcePackServerBind().isEmpty()) {
+      startResourcePackServer();
+    }
+
     Metrics.VelocityMetrics.startMetrics(this, configuration.getMetrics());
   }
 
+  private void startResourcePackServer() {
+    ResourcePackOptimizer optimizer = null;
+    if (configuration.isOptimizeResourcePacks()) {
+      optimizer = new ResourcePackOptimizer(
+          Path.of(configuration.getResourcePackMergeCacheDirectory()).resolve("optimized"));
+    }
+    ResourcePackDirectory directory = new ResourcePackDirectory(
+        Path.of(configuration.getResourcePackServerDirectory()), resourcePackHasher, optimizer);
+    try {
+      directory.reload();
+    } catch (IOException e) {
+      logger.error("Unable to load resource packs from {}, not starting the resource pack server",
+          directory.directory(), e);
+      return;
+    }
+
+    SocketAddress address = AddressUtil.parseAndResolveAddress(
+        configuration.getResourcePackServerBind());
+    if (!(address instanceof InetSocketAddress)) {
+      logger.error("The resource pack server can only listen on an IP address, not {}", address);
+      return;
+    }
+    ResourcePackMerger merger = new ResourcePackMerger(
+        Path.of(configuration.getResourcePackMergeCacheDirectory()),
+        configuration.getResourcePackMergeCacheSize() * 1024L * 1024L, directory,
+        resourcePackHashResolver, cm.getHttpClient());
+    try {
+      merger.load();
+    } catch (IOException e) {
+      logger.error("Unable to load merged resource packs from {}",
+          configuration.getResourcePackMergeCacheDirectory(), e);
+    }
+    resourcePackServer = new ResourcePackHttpServer(directory, merger,
+        (InetSocketAddress) address, configuration.getResourcePackServerUrl());
+    resourcePackServer.start(cm);
+  }
+
   private void registerTranslations() {
     final TranslationRegistry translationRegistry = TranslationRegistry
         .create(Key.key("velocity", "translations"));
@@ -468,9 +557,14 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
           newConfiguration.getQueryPort());
     }
 
+    if (resourcePackServer != null) {
+      resourcePackServer.directory().reload();
+    }
+
     commandManager.setAnnounceProxyCommands(newConfiguration.isAnnounceProxyCommands());
     ipAttemptLimiter = Ratelimiters.createWithMilliseconds(newConfiguration.getLoginRatelimit());
     this.configuration = newConfiguration;
+    serverListPingHandler.invalidateCaches();
     eventManager.fireAndForget(new ProxyReloadEvent());
     return true;
   }
@@ -496,6 +590,9 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
       // Shutdown the connection manager, this should be
       // done first to refuse new connections
       cm.shutdown();
+      if (resourcePackServer != null) {
+        resourcePackServer.close();
+      }
 
       ImmutableList<ConnectedPlayer> players = ImmutableList.copyOf(connectionsByUuid.values());
       for (ConnectedPlayer player : players) {
@@ -533,6 +630,18 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
         Thread.currentThread().interrupt();
       }
 
+      resourcePackTimer.stop();
+      resourcePackHasher.shutdown();
+      if (resourcePackDeclineCache != null && resourcePackDeclineCache.isEnabled()
+          && !configuration.getResourcePackDeclineSnapshot().isEmpty()) {
+        Path snapshot = Path.of(configuration.getResourcePackDeclineSnapshot());
+        try {
+          resourcePackDeclineCache.save(snapshot);
+        } catch (IOException e) {
+          logger.error("Unable to save remembered resource pack declines to {}", snapshot, e);
+        }
+      }
+
       // Since we manually removed the shutdown hook, we need to handle the shutdown ourselves.
       LogManager.shutdown();
 
@@ -579,6 +688,46 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
     return cm.getHttpClient();
   }
 
+  public @Nullable ResourcePackHttpServer getResourcePackServer() {
+    return resourcePackServer;
+  }
+
+  public ResourcePackHashResolver getResourcePackHashResolver() {
+    return resourcePackHashResolver;
+  }
+
+  public ResourcePackQueuePolicy getResourcePackQueuePolicy() {
+    return resourcePackQueuePolicy;
+  }
+
+  public ResourcePackPrefetcher getResourcePackPrefetcher() {
+    return resourcePackPrefetcher;
+  }
+
+  public ResourcePackTelemetry getResourcePackTelemetry() {
+    return resourcePackTelemetry;
+  }
+
+  public ResourcePackHasher getResourcePackHasher() {
+    return resourcePackHasher;
+  }
+
+  public ResourcePackDeclineCache getResourcePackDeclineCache() {
+    return resourcePackDeclineCache;
+  }
+
+  public Timer getResourcePackTimer() {
+    return resourcePackTimer;
+  }
+
+  public CompressionOffloadExecutor getCompressionOffloadExecutor() {
+    return cm.getCompressionOffloadExecutor();
+  }
+
+  public LoginCryptoExecutor getLoginCryptoExecutor() {
+    return cm.getLoginCryptoExecutor();
+  }
+
   public Ratelimiter getIpAttemptLimiter() {
     return ipAttemptLimiter;
   }
@@ -768,4 +917,41 @@ public class VelocityServer implements ProxyServer, ForwardingAudience {
   public ResourcePackInfo.Builder createResourcePackBuilder(String url) {
     return new VelocityResourcePackInfo.BuilderImpl(url);
   }
+
+  @Override
+  public Optional<ResourcePackInfo.Builder> createLocalResourcePackBuilder(String id) {
+    Preconditions.checkNotNull(id, "id");
+    ResourcePackHttpServer packServer = this.resourcePackServer;
+    if (packServer == null) {
+      return Optional.empty();
+    }
+    return packServer.directory().pack(id)
+        .map(pack -> new VelocityResourcePackInfo.BuilderImpl(packServer.url(pack))
+            .hash(pack.hash()));
+  }
+
+  @Override
+  public CompletableFuture<byte[]> computeResourcePackHash(Path file) {
+    Preconditions.checkNotNull(file, "file");
+    return resourcePackHasher.hash(file);
+  }
+
+  @Override
+  public Collection<ResourcePackStatistics> resourcePackStatistics() {
+    return resourcePackTelemetry.statistics();
+  }
+
+  @Override
+  public CompletableFuture<ResourcePackInfo.Builder> mergeResourcePacks(
+      List<ResourcePackInfo> packs) {
+    Preconditions.checkNotNull(packs, "packs");
+    ResourcePackHttpServer packServer = this.resourcePackServer;
+    if (packServer == null) {
+      return CompletableFuture.failedFuture(
+          new IllegalStateException("The resource pack server is disabled"));
+    }
+    return packServer.merger().merge(packs)
+        .thenApply(pack -> new VelocityResourcePackInfo.BuilderImpl(packServer.mergedUrl(pack))
+            .hash(pack.hash()));
+  }
 }
@@ -27,6 +27,7 @@ import com.velocitypowered.api.command.SimpleCommand;
 import com.velocitypowered.api.plugin.PluginContainer;
 import com.velocitypowered.api.plugin.PluginDescription;
 import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.player.ResourcePackStatistics;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.util.ProxyVersion;
 import com.velocitypowered.proxy.VelocityServer;
@@ -42,8 +43,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -93,6 +97,7 @@ public class VelocityCommand implements SimpleCommand {
         .put("reload", new Reload(server))
         .put("dump", new Dump(server))
         .put("heap", new Heap())
+        .put("resourcepacks", new ResourcePacks(server))
         .build();
   }
 
@@ -340,12 +345,67 @@ public class VelocityCommand implements SimpleCommand {
     }
   }
 
+  private static class ResourcePacks implements SubCommand {
+
+    private final VelocityServer server;
+
+    private ResourcePacks(VelocityServer server) {
+      this.server = server;
+    }
+
+    @Override
+    public void execute(CommandSource source, String @NonNull [] args) {
+      if (args.length != 0) {
+        source.sendMessage(Component.text("/velocity resourcepacks", NamedTextColor.RED));
+        return;
+      }
+
+      List<ResourcePackStatistics> statistics =
+          new ArrayList<>(server.resourcePackStatistics());
+      if (statistics.isEmpty()) {
+        source.sendMessage(Component.translatable("velocity.command.resourcepacks-none",
+            NamedTextColor.YELLOW));
+        return;
+      }
+
+      statistics.sort(Comparator.comparingLong(ResourcePackStatistics::offered).reversed());
+      source.sendMessage(Component.translatable("velocity.command.resourcepacks-header",
+          NamedTextColor.YELLOW));
+      for (ResourcePackStatistics host : statistics) {
+        source.sendMessage(Component.translatable("velocity.command.resourcepacks-host",
+            NamedTextColor.GRAY,
+            Component.text(host.host(), NamedTextColor.WHITE),
+            Component.text(host.offered()),
+            Component.text(percentage(host.declineRate())),
+            Component.text(percentage(host.failureRate())),
+            Component.text(seconds(host.downloadTime(0.5))),
+            Component.text(seconds(host.downloadTime(0.95)))));
+      }
+      source.sendMessage(Component.translatable("velocity.command.resourcepacks-avoided",
+          NamedTextColor.GRAY,
+          Component.text(server.getResourcePackQueuePolicy().avoidedDownloads())));
+    }
+
+    private static String percentage(double rate) {
+      return String.format(Locale.ROOT, "%.1f%%", rate * 100);
+    }
+
+    private static String seconds(Duration duration) {
+      return String.format(Locale.ROOT, "%.1fs", duration.toMillis() / 1000.0);
+    }
+
+    @Override
+    public boolean hasPermission(final CommandSource source, final String @NonNull [] args) {
+      return source.getPermissionValue("velocity.command.resourcepacks") == TriState.TRUE;
+    }
+  }
+
   private static class Dump implements SubCommand {
 
     private static final Logger logger = LogManager.getLogger(Dump.class);
-    private final ProxyServer server;
+    private final VelocityServer server;
 
-    private Dump(ProxyServer server) {
+    private Dump(VelocityServer server) {
       this.server = server;
     }
 
@@ -380,6 +440,10 @@ public class VelocityCommand implements SimpleCommand {
       dump.add("platform", InformationUtils.collectEnvironmentInfo());
       dump.add("config", proxyConfig);
       dump.add("plugins", InformationUtils.collectPluginInfo(server));
+      dump.add("compressionOffload",
+          InformationUtils.collectCompressionOffloadInfo(server.getCompressionOffloadExecutor()));
+      dump.add("loginCrypto",
+          InformationUtils.collectLoginCryptoInfo(server.getLoginCryptoExecutor()));
 
       Path dumpPath = Path.of("velocity-dump-"
           + new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new Date())
@@ -77,6 +77,7 @@ public class VelocityConfiguration implements ProxyConfig {
   private PingPassthroughMode pingPassthrough = PingPassthroughMode.DISABLED;
   private final Servers servers;
   private final ForcedHosts forcedHosts;
+  private final ResourcePackPrefetch resourcePackPrefetch;
   @Expose
   private final Advanced advanced;
   @Expose
@@ -93,6 +94,7 @@ public class VelocityConfiguration implements ProxyConfig {
       Query query, Metrics metrics) {
     this.servers = servers;
     this.forcedHosts = forcedHosts;
+    this.resourcePackPrefetch = new ResourcePackPrefetch();
     this.advanced = advanced;
     this.query = query;
     this.metrics = metrics;
@@ -103,7 +105,8 @@ public class VelocityConfiguration implements ProxyConfig {
       PlayerInfoForwarding playerInfoForwardingMode, byte[] forwardingSecret,
       boolean onlineModeKickExistingPlayers, PingPassthroughMode pingPassthrough,
       boolean enablePlayerAddressLogging, Servers servers, ForcedHosts forcedHosts,
-      Advanced advanced, Query query, Metrics metrics, boolean forceKeyAuthentication) {
+      ResourcePackPrefetch resourcePackPrefetch, Advanced advanced, Query query, Metrics metrics,
+      boolean forceKeyAuthentication) {
     this.bind = bind;
     this.motd = motd;
     this.showMaxPlayers = showMaxPlayers;
@@ -117,6 +120,7 @@ public class VelocityConfiguration implements ProxyConfig {
     this.enablePlayerAddressLogging = enablePlayerAddressLogging;
     this.servers = servers;
     this.forcedHosts = forcedHosts;
+    this.resourcePackPrefetch = resourcePackPrefetch;
     this.advanced = advanced;
     this.query = query;
     this.metrics = metrics;
@@ -313,6 +317,17 @@ public class VelocityConfiguration implements ProxyConfig {
     return forcedHosts.getForcedHosts();
   }
 
+  /**
+   * Returns the resource packs to offer to players while they connect to their first server,
+   * keyed by lower-cased forced host or server name. Each value is either the ID of a pack served
+   * by the built-in resource pack server or the URL of a pack.
+   *
+   * @return the resource packs to prefetch
+   */
+  public Map<String, String> getResourcePackPrefetch() {
+    return resourcePackPrefetch.getPacks();
+  }
+
   @Override
   public int getCompressionThreshold() {
     return advanced.getCompressionThreshold();
@@ -392,6 +407,70 @@ public class VelocityConfiguration implements ProxyConfig {
     return advanced.isLogPlayerConnections();
   }
 
+  public boolean isCompressionPassthrough() {
+    return advanced.isCompressionPassthrough();
+  }
+
+  public int getCompressionOffloadThreshold() {
+    return advanced.getCompressionOffloadThreshold();
+  }
+
+  public boolean isOutboundPriorityLane() {
+    return advanced.isOutboundPriorityLane();
+  }
+
+  public boolean isResolveResourcePackHashes() {
+    return advanced.isResolveResourcePackHashes();
+  }
+
+  public String getResourcePackServerBind() {
+    return advanced.getResourcePackServerBind();
+  }
+
+  public String getResourcePackServerUrl() {
+    return advanced.getResourcePackServerUrl();
+  }
+
+  public String getResourcePackServerDirectory() {
+    return advanced.getResourcePackServerDirectory();
+  }
+
+  public boolean isDeduplicateResourcePacks() {
+    return advanced.isDeduplicateResourcePacks();
+  }
+
+  public boolean isSupersedeQueuedResourcePacks() {
+    return advanced.isSupersedeQueuedResourcePacks();
+  }
+
+  public String getResourcePackMergeCacheDirectory() {
+    return advanced.getResourcePackMergeCacheDirectory();
+  }
+
+  public int getResourcePackMergeCacheSize() {
+    return advanced.getResourcePackMergeCacheSize();
+  }
+
+  public int getResourcePackResponseTimeout() {
+    return advanced.getResourcePackResponseTimeout();
+  }
+
+  public boolean isOptimizeResourcePacks() {
+    return advanced.isOptimizeResourcePacks();
+  }
+
+  public int getRememberResourcePackDeclines() {
+    return advanced.getRememberResourcePackDeclines();
+  }
+
+  public String getResourcePackDeclineSnapshot() {
+    return advanced.getResourcePackDeclineSnapshot();
+  }
+
+  public int getPingPassthroughCacheTtl() {
+    return advanced.getPingPassthroughCacheTtl();
+  }
+
   public boolean isForceKeyAuthentication() {
     return forceKeyAuthentication;
   }
@@ -408,6 +487,7 @@ public class VelocityConfiguration implements ProxyConfig {
         .add("announceForge", announceForge)
         .add("servers", servers)
         .add("forcedHosts", forcedHosts)
+        .add("resourcePackPrefetch", resourcePackPrefetch)
         .add("advanced", advanced)
         .add("query", query)
         .add("favicon", favicon)
@@ -547,6 +627,7 @@ public class VelocityConfiguration implements ProxyConfig {
     // Read the rest of the config
     CommentedConfig serversConfig = config.get("servers");
     CommentedConfig forcedHostsConfig = config.get("forced-hosts");
+    CommentedConfig resourcePackPrefetchConfig = config.get("resource-pack-prefetch");
     CommentedConfig advancedConfig = config.get("advanced");
     CommentedConfig queryConfig = config.get("query");
     CommentedConfig metricsConfig = config.get("metrics");
@@ -587,6 +668,7 @@ public class VelocityConfiguration implements ProxyConfig {
         enablePlayerAddressLogging,
         new Servers(serversConfig),
         new ForcedHosts(forcedHostsConfig),
+        new ResourcePackPrefetch(resourcePackPrefetchConfig),
         new Advanced(advancedConfig),
         new Query(queryConfig),
         new Metrics(metricsConfig),
@@ -730,6 +812,40 @@ public class VelocityConfiguration implements ProxyConfig {
     }
   }
 
+  private static class ResourcePackPrefetch {
+
+    private Map<String, String> packs = ImmutableMap.of();
+
+    private ResourcePackPrefetch() {
+    }
+
+    private ResourcePackPrefetch(CommentedConfig config) {
+      if (config != null) {
+        Map<String, String> packs = new HashMap<>();
+        for (UnmodifiableConfig.Entry entry : config.entrySet()) {
+          if (entry.getValue() instanceof String) {
+            packs.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+          } else {
+            throw new IllegalStateException("Invalid value of type "
+                + entry.getValue().getClass() + " in resource pack prefetch!");
+          }
+        }
+        this.packs = ImmutableMap.copyOf(packs);
+      }
+    }
+
+    private Map<String, String> getPacks() {
+      return packs;
+    }
+
+    @Override
+    public String toString() {
+      return "ResourcePackPrefetch{"
+          + "packs=" + packs
+          + '}';
+    }
+  }
+
   private static class Advanced {
 
     @Expose
@@ -758,6 +874,38 @@ public class VelocityConfiguration implements ProxyConfig {
     private boolean logCommandExecutions = false;
     @Expose
     private boolean logPlayerConnections = true;
+    @Expose
+    private boolean compressionPassthrough = false;
+    @Expose
+    private int compressionOffloadThreshold = -1;
+    @Expose
+    private boolean outboundPriorityLane = false;
+    @Expose
+    private boolean resolveResourcePackHashes = false;
+    @Expose
+    private String resourcePackServerBind = "";
+    @Expose
+    private String resourcePackServerUrl = "";
+    @Expose
+    private String resourcePackServerDirectory = "resource-packs";
+    @Expose
+    private boolean deduplicateResourcePacks = false;
+    @Expose
+    private boolean supersedeQueuedResourcePacks = false;
+    @Expose
+    private String resourcePackMergeCacheDirectory = "resource-pack-cache";
+    @Expose
+    private int resourcePackMergeCacheSize = 512;
+    @Expose
+    private int resourcePackResponseTimeout = 300;
+    @Expose
+    private boolean optimizeResourcePacks = false;
+    @Expose
+    private int rememberResourcePackDeclines = 0;
+    @Expose
+    private String resourcePackDeclineSnapshot = "";
+    @Expose
+    private int pingPassthroughCacheTtl = 5000;
 
     private Advanced() {
     }
@@ -782,6 +930,28 @@ public class VelocityConfiguration implements ProxyConfig {
         this.announceProxyCommands = config.getOrElse("announce-proxy-commands", true);
         this.logCommandExecutions = config.getOrElse("log-command-executions", false);
         this.logPlayerConnections = config.getOrElse("log-player-connections", true);
+        this.compressionPassthrough = config.getOrElse("compression-passthrough", false);
+        this.compressionOffloadThreshold = config.getIntOrElse("compression-offload-threshold", -1);
+        this.outboundPriorityLane = config.getOrElse("outbound-priority-lane", false);
+        this.resolveResourcePackHashes = config.getOrElse("resolve-resource-pack-hashes", false);
+        this.resourcePackServerBind = config.getOrElse("resource-pack-server-bind", "");
+        this.resourcePackServerUrl = config.getOrElse("resource-pack-server-url", "");
+        this.resourcePackServerDirectory = config.getOrElse("resource-pack-server-directory",
+            "resource-packs");
+        this.deduplicateResourcePacks = config.getOrElse("deduplicate-resource-packs", false);
+        this.supersedeQueuedResourcePacks = config.getOrElse("supersede-queued-resource-packs",
+            false);
+        this.resourcePackMergeCacheDirectory = config.getOrElse(
+            "resource-pack-merge-cache-directory", "resource-pack-cache");
+        this.resourcePackMergeCacheSize = config.getIntOrElse("resource-pack-merge-cache-size",
+            512);
+        this.resourcePackResponseTimeout = config.getIntOrElse("resource-pack-response-timeout",
+            300);
+        this.optimizeResourcePacks = config.getOrElse("optimize-resource-packs", false);
+        this.rememberResourcePackDeclines = config.getIntOrElse("remember-resource-pack-declines",
+            0);
+        this.resourcePackDeclineSnapshot = config.getOrElse("resource-pack-decline-snapshot", "");
+        this.pingPassthroughCacheTtl = config.getIntOrElse("ping-passthrough-cache-ttl", 5000);
       }
     }
 
@@ -837,6 +1007,70 @@ public class VelocityConfiguration implements ProxyConfig {
       return logPlayerConnections;
     }
 
+    public boolean isCompressionPassthrough() {
+      return compressionPassthrough;
+    }
+
+    public int getCompressionOffloadThreshold() {
+      return compressionOffloadThreshold;
+    }
+
+    public boolean isOutboundPriorityLane() {
+      return outboundPriorityLane;
+    }
+
+    public boolean isResolveResourcePackHashes() {
+      return resolveResourcePackHashes;
+    }
+
+    public String getResourcePackServerBind() {
+      return resourcePackServerBind;
+    }
+
+    public String getResourcePackServerUrl() {
+      return resourcePackServerUrl;
+    }
+
+    public String getResourcePackServerDirectory() {
+      return resourcePackServerDirectory;
+    }
+
+    public boolean isDeduplicateResourcePacks() {
+      return deduplicateResourcePacks;
+    }
+
+    public boolean isSupersedeQueuedResourcePacks() {
+      return supersedeQueuedResourcePacks;
+    }
+
+    public String getResourcePackMergeCacheDirectory() {
+      return resourcePackMergeCacheDirectory;
+    }
+
+    public int getResourcePackMergeCacheSize() {
+      return resourcePackMergeCacheSize;
+    }
+
+    public int getResourcePackResponseTimeout() {
+      return resourcePackResponseTimeout;
+    }
+
+    public boolean isOptimizeResourcePacks() {
+      return optimizeResourcePacks;
+    }
+
+    public int getRememberResourcePackDeclines() {
+      return rememberResourcePackDeclines;
+    }
+
+    public String getResourcePackDeclineSnapshot() {
+      return resourcePackDeclineSnapshot;
+    }
+
+    public int getPingPassthroughCacheTtl() {
+      return pingPassthroughCacheTtl;
+    }
+
     @Override
     public String toString() {
       return "Advanced{"
@@ -853,6 +1087,22 @@ public class VelocityConfiguration implements ProxyConfig {
           + ", announceProxyCommands=" + announceProxyCommands
           + ", logCommandExecutions=" + logCommandExecutions
           + ", logPlayerConnections=" + logPlayerConnections
+          + ", compressionPassthrough=" + compressionPassthrough
+          + ", compressionOffloadThreshold=" + compressionOffloadThreshold
+          + ", outboundPriorityLane=" + outboundPriorityLane
+          + ", resolveResourcePackHashes=" + resolveResourcePackHashes
+          + ", resourcePackServerBind=" + resourcePackServerBind
+          + ", resourcePackServerUrl=" + resourcePackServerUrl
+          + ", resourcePackServerDirectory=" + resourcePackServerDirectory
+          + ", deduplicateResourcePacks=" + deduplicateResourcePacks
+          + ", supersedeQueuedResourcePacks=" + supersedeQueuedResourcePacks
+          + ", resourcePackMergeCacheDirectory=" + resourcePackMergeCacheDirectory
+          + ", resourcePackMergeCacheSize=" + resourcePackMergeCacheSize
+          + ", resourcePackResponseTimeout=" + resourcePackResponseTimeout
+          + ", optimizeResourcePacks=" + optimizeResourcePacks
+          + ", rememberResourcePackDeclines=" + rememberResourcePackDeclines
+          + ", resourcePackDeclineSnapshot=" + resourcePackDeclineSnapshot
+          + ", pingPassthroughCacheTtl=" + pingPassthroughCacheTtl
           + '}';
     }
   }
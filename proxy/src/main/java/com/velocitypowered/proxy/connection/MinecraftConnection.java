@@ -25,6 +25,7 @@ import static com.velocitypowered.proxy.network.Connections.FRAME_DECODER;
 import static com.velocitypowered.proxy.network.Connections.FRAME_ENCODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_DECODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_ENCODER;
+import static com.velocitypowered.proxy.network.Connections.OUTBOUND_PRIORITY;
 
 import com.google.common.base.Preconditions;
 import com.velocitypowered.api.network.ProtocolVersion;
@@ -37,13 +38,17 @@ import com.velocitypowered.proxy.connection.client.HandshakeSessionHandler;
 import com.velocitypowered.proxy.connection.client.InitialLoginSessionHandler;
 import com.velocitypowered.proxy.connection.client.StatusSessionHandler;
 import com.velocitypowered.proxy.network.Connections;
+import com.velocitypowered.proxy.network.pipeline.compression.CompressedPacket;
 import com.velocitypowered.proxy.network.pipeline.compression.MinecraftCompressDecoder;
 import com.velocitypowered.proxy.network.pipeline.compression.MinecraftCompressorAndLengthEncoder;
+import com.velocitypowered.proxy.network.pipeline.compression.SharedCompressors;
 import com.velocitypowered.proxy.network.pipeline.deser.MinecraftDecoder;
 import com.velocitypowered.proxy.network.pipeline.deser.MinecraftEncoder;
 import com.velocitypowered.proxy.network.pipeline.encryption.MinecraftCipherDecoder;
 import com.velocitypowered.proxy.network.pipeline.encryption.MinecraftCipherEncoder;
+import com.velocitypowered.proxy.network.pipeline.encryption.MinecraftCipherFrameDecoder;
 import com.velocitypowered.proxy.network.pipeline.framing.MinecraftVarintLengthEncoder;
+import com.velocitypowered.proxy.network.pipeline.util.OutboundPriorityHandler;
 import com.velocitypowered.proxy.network.pipeline.util.PlayPacketQueueHandler;
 import com.velocitypowered.proxy.network.pipeline.util.VelocityConnectionEvent;
 import com.velocitypowered.proxy.network.protocol.MinecraftPacket;
@@ -80,6 +85,8 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public class MinecraftConnection extends ChannelInboundHandlerAdapter {
 
   private static final Logger logger = LogManager.getLogger(MinecraftConnection.class);
+  private static final boolean FUSED_CIPHER_DECODER =
+      !Boolean.getBoolean("velocity.disable-fused-cipher-decoder");
 
   private final Channel channel;
   private SocketAddress remoteAddress;
@@ -158,6 +165,8 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
             proxyMessage.sourcePort());
       } else if (msg instanceof ByteBuf) {
         activeSessionHandler.handleUnknown((ByteBuf) msg);
+      } else if (msg instanceof CompressedPacket) {
+        activeSessionHandler.handleCompressed((CompressedPacket) msg);
       }
     } finally {
       ReferenceCountUtil.release(msg);
@@ -362,6 +371,7 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
   public void setState(StateRegistry state) {
     ensureInEventLoop();
 
+    releaseHeldWrites();
     this.state = state;
     this.channel.pipeline().get(MinecraftEncoder.class).setState(state);
     this.channel.pipeline().get(MinecraftDecoder.class).setState(state);
@@ -375,6 +385,20 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     }
   }
 
+  /**
+   * Writes out any packets the outbound priority lane is holding back. They have not been encoded
+   * yet, so this has to happen before anything that changes how packets are encoded.
+   */
+  public void releaseHeldWrites() {
+    ensureInEventLoop();
+
+    OutboundPriorityHandler handler =
+        (OutboundPriorityHandler) channel.pipeline().get(OUTBOUND_PRIORITY);
+    if (handler != null) {
+      handler.releaseHeldWrites();
+    }
+  }
+
   /**
    * Adds the play packet queue handler.
    */
@@ -398,6 +422,7 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
   public void setProtocolVersion(ProtocolVersion protocolVersion) {
     ensureInEventLoop();
 
+    releaseHeldWrites();
     boolean changed = this.protocolVersion != protocolVersion;
     this.protocolVersion = protocolVersion;
     if (protocolVersion != ProtocolVersion.LEGACY) {
@@ -495,6 +520,7 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
   public void setCompressionThreshold(int threshold) {
     ensureOpen();
     ensureInEventLoop();
+    releaseHeldWrites();
 
     if (threshold == -1) {
       final ChannelHandler removedDecoder = channel.pipeline().remove(COMPRESSION_DECODER);
@@ -515,11 +541,16 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
         encoder.setThreshold(threshold);
       } else {
         int level = server.configuration().getCompressionLevel();
-        VelocityCompressor compressor = Natives.compress.get().create(level);
+        VelocityCompressor compressor = SharedCompressors.get(level);
 
         encoder = new MinecraftCompressorAndLengthEncoder(threshold, compressor);
         decoder = new MinecraftCompressDecoder(threshold, compressor);
 
+        int offloadThreshold = server.configuration().getCompressionOffloadThreshold();
+        if (offloadThreshold >= 0) {
+          encoder.enableOffload(server.getCompressionOffloadExecutor(), offloadThreshold, level);
+        }
+
         channel.pipeline().remove(FRAME_ENCODER);
         channel.pipeline().addBefore(MINECRAFT_DECODER, COMPRESSION_DECODER, decoder);
         channel.pipeline().addBefore(MINECRAFT_ENCODER, COMPRESSION_ENCODER, encoder);
@@ -529,6 +560,33 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
     }
   }
 
+  /**
+   * Determines whether compressed packets the proxy does not decode are delivered to the session
+   * handler as {@link CompressedPacket}s without inflating them. Has no effect if compression is
+   * not enabled on this connection.
+   *
+   * @param passthrough whether to pass compressed packets through
+   */
+  public void setCompressionPassthrough(boolean passthrough) {
+    ensureInEventLoop();
+
+    MinecraftCompressDecoder decoder = (MinecraftCompressDecoder) channel.pipeline()
+        .get(COMPRESSION_DECODER);
+    if (decoder != null) {
+      decoder.setPassthroughDecoder(
+          passthrough ? channel.pipeline().get(MinecraftDecoder.class) : null);
+    }
+  }
+
+  /**
+   * Checks whether compression is enabled on the connection.
+   *
+   * @return whether compression is enabled
+   */
+  public boolean isCompressionEnabled() {
+    return channel.pipeline().get(COMPRESSION_ENCODER) != null;
+  }
+
   /**
    * Enables encryption on the connection.
    *
@@ -538,14 +596,22 @@ public class MinecraftConnection extends ChannelInboundHandlerAdapter {
   public void enableEncryption(byte[] secret) throws GeneralSecurityException {
     ensureOpen();
     ensureInEventLoop();
+    releaseHeldWrites();
 
     SecretKey key = new SecretKeySpec(secret, "AES");
 
     VelocityCipherFactory factory = Natives.cipher.get();
     VelocityCipher decryptionCipher = factory.forDecryption(key);
     VelocityCipher encryptionCipher = factory.forEncryption(key);
-    channel.pipeline()
-        .addBefore(FRAME_DECODER, CIPHER_DECODER, new MinecraftCipherDecoder(decryptionCipher));
+    if (FUSED_CIPHER_DECODER) {
+      // Decrypt and frame in one pass. Any bytes the old frame decoder still holds arrived after
+      // the client enabled encryption, so they are handed to the new decoder to be decrypted.
+      channel.pipeline().replace(FRAME_DECODER, FRAME_DECODER,
+          new MinecraftCipherFrameDecoder(decryptionCipher));
+    } else {
+      channel.pipeline()
+          .addBefore(FRAME_DECODER, CIPHER_DECODER, new MinecraftCipherDecoder(decryptionCipher));
+    }
     channel.pipeline()
         .addBefore(FRAME_ENCODER, CIPHER_ENCODER, new MinecraftCipherEncoder(encryptionCipher));
 
@@ -17,6 +17,7 @@
 
 package com.velocitypowered.proxy.connection;
 
+import com.velocitypowered.proxy.network.pipeline.compression.CompressedPacket;
 import com.velocitypowered.proxy.network.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.network.protocol.packet.AvailableCommands;
 import com.velocitypowered.proxy.network.protocol.packet.BossBarPacket;
@@ -88,6 +89,10 @@ public interface MinecraftSessionHandler {
 
   }
 
+  default void handleCompressed(CompressedPacket packet) {
+
+  }
+
   default void connected() {
 
   }
@@ -38,6 +38,7 @@ import com.velocitypowered.proxy.connection.MinecraftSessionHandler;
 import com.velocitypowered.proxy.connection.client.ClientPlaySessionHandler;
 import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
 import com.velocitypowered.proxy.connection.util.ConnectionMessages;
+import com.velocitypowered.proxy.network.pipeline.compression.CompressedPacket;
 import com.velocitypowered.proxy.network.pipeline.deser.MinecraftDecoder;
 import com.velocitypowered.proxy.network.protocol.MinecraftPacket;
 import com.velocitypowered.proxy.network.protocol.StateRegistry;
@@ -112,6 +113,18 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
       ));
     }
 
+    if (server.configuration().isCompressionPassthrough()
+        && playerConnection.isCompressionEnabled()) {
+      serverMc.setCompressionPassthrough(true);
+    }
+  }
+
+  @Override
+  public void deactivated() {
+    MinecraftConnection serverMc = serverConn.getConnection();
+    if (serverMc != null) {
+      serverMc.setCompressionPassthrough(false);
+    }
   }
 
   @Override
@@ -192,6 +205,17 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
               .setOriginalOrigin(ResourcePackInfo.Origin.DOWNSTREAM_SERVER);
         }
 
+        if (serverConn.answerFromPrefetchedResourcePack(toSend, packet.getHash())) {
+          return;
+        }
+
+        ResourcePackInfo applied = serverConn.player().appliedResourcePack();
+        if (applied != null && serverConn.server().isResourcePackDeduplicationEnabled()
+            && VelocityResourcePackInfo.isSamePack(applied, toSend)) {
+          serverConn.acknowledgeAppliedResourcePack(packet.getHash());
+          return;
+        }
+
         serverConn.player().queueResourcePack(toSend);
       } else if (serverConn.getConnection() != null) {
         serverConn.getConnection().write(new ResourcePackResponse(
@@ -331,6 +355,15 @@ public class BackendPlaySessionHandler implements MinecraftSessionHandler {
     }
   }
 
+  @Override
+  public void handleCompressed(CompressedPacket packet) {
+    playerConnection.delayedWrite(packet.retain());
+    if (++packetsFlushed >= MAXIMUM_PACKETS_TO_FLUSH) {
+      playerConnection.flush();
+      packetsFlushed = 0;
+    }
+  }
+
   @Override
   public void readCompleted() {
     playerConnection.flush();
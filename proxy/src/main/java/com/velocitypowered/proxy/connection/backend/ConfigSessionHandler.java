@@ -131,7 +131,20 @@ public class ConfigSessionHandler implements MinecraftSessionHandler {
               ResourcePackInfo.Origin.DOWNSTREAM_SERVER);
         }
 
+        ResourcePackInfo previous = resourcePackToApply;
         resourcePackToApply = null;
+        if (serverConn.answerFromPrefetchedResourcePack(toSend, packet.getHash())) {
+          return;
+        }
+        // The player still holds the pack it had before the switch, so there is no need to make
+        // the client download and reload it again.
+        if (previous != null && serverConn.server().isResourcePackDeduplicationEnabled()
+            && VelocityResourcePackInfo.isSamePack(previous, toSend)) {
+          serverConn.player().restoreAppliedResourcePack(previous);
+          serverConn.acknowledgeAppliedResourcePack(packet.getHash());
+          return;
+        }
+
         serverConn.player().queueResourcePack(toSend);
       } else if (serverConn.getConnection() != null) {
         serverConn.getConnection().write(new ResourcePackResponse(packet.getHash(),
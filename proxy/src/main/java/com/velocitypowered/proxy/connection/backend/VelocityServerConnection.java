@@ -23,9 +23,11 @@ import static com.velocitypowered.proxy.network.Connections.HANDLER;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.velocitypowered.api.event.player.PlayerResourcePackStatusEvent;
 import com.velocitypowered.api.network.ProtocolVersion;
 import com.velocitypowered.api.network.connection.ServerConnection;
 import com.velocitypowered.api.proxy.messages.ChannelIdentifier;
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.proxy.server.ServerInfo;
 import com.velocitypowered.api.util.GameProfile.Property;
@@ -41,6 +43,7 @@ import com.velocitypowered.proxy.network.protocol.StateRegistry;
 import com.velocitypowered.proxy.network.protocol.packet.Handshake;
 import com.velocitypowered.proxy.network.protocol.packet.JoinGame;
 import com.velocitypowered.proxy.network.protocol.packet.PluginMessage;
+import com.velocitypowered.proxy.network.protocol.packet.ResourcePackResponse;
 import com.velocitypowered.proxy.network.protocol.packet.ServerLogin;
 import com.velocitypowered.proxy.server.VelocityRegisteredServer;
 import io.netty.buffer.ByteBuf;
@@ -242,6 +245,51 @@ public class VelocityServerConnection implements MinecraftConnectionAssociation,
     return connection;
   }
 
+  /**
+   * Answers a resource pack request from the server on behalf of the player, who already has the
+   * pack applied, without involving the player.
+   *
+   * @param hash the hash the server sent with its request
+   */
+  public void acknowledgeAppliedResourcePack(@Nullable String hash) {
+    if (connection == null) {
+      return;
+    }
+    connection.write(new ResourcePackResponse(hash, PlayerResourcePackStatusEvent.Status.ACCEPTED));
+    connection.write(new ResourcePackResponse(hash,
+        PlayerResourcePackStatusEvent.Status.SUCCESSFUL));
+  }
+
+  /**
+   * Answers a resource pack request from the server with the outcome of the same pack having been
+   * prefetched for the player during login. If the player did not load the prefetched pack, the
+   * requested pack is sent to the player as usual.
+   *
+   * @param pack the pack the server requested
+   * @param hash the hash the server sent with its request
+   * @return whether the request matched the prefetched pack and will be answered
+   */
+  public boolean answerFromPrefetchedResourcePack(ResourcePackInfo pack, @Nullable String hash) {
+    CompletableFuture<PlayerResourcePackStatusEvent.Status> prefetched =
+        proxyPlayer.claimPrefetchedResourcePack(pack);
+    if (prefetched == null) {
+      return false;
+    }
+
+    prefetched.thenAcceptAsync(status -> {
+      if (proxyPlayer.getConnection().isClosed()) {
+        return;
+      }
+      if (status == PlayerResourcePackStatusEvent.Status.SUCCESSFUL) {
+        proxyPlayer.restoreAppliedResourcePack(pack);
+        acknowledgeAppliedResourcePack(hash);
+      } else {
+        proxyPlayer.queueResourcePack(pack);
+      }
+    }, proxyPlayer.getConnection().eventLoop());
+    return true;
+  }
+
   @Override
   public VelocityRegisteredServer server() {
     return registeredServer;
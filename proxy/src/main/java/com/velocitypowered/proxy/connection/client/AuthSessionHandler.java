@@ -181,6 +181,7 @@ public class AuthSessionHandler implements MinecraftSessionHandler {
       loginState = State.ACKNOWLEDGED;
       mcConnection.setActiveSessionHandler(StateRegistry.CONFIG,
           new ClientConfigSessionHandler(server, connectedPlayer));
+      server.getResourcePackPrefetcher().prefetch(connectedPlayer);
 
       server.eventManager().fire(new PostLoginEvent(connectedPlayer))
           .thenCompose((ignored) -> connectToInitialServer(connectedPlayer)).exceptionally((ex) -> {
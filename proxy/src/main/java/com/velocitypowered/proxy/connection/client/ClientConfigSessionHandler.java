@@ -93,10 +93,19 @@ public class ClientConfigSessionHandler implements MinecraftSessionHandler {
 
   @Override
   public boolean handle(ResourcePackResponse packet) {
-    if (player.getConnectionInFlight() != null) {
-      player.getConnectionInFlight().ensureConnected().write(packet);
+    if (player.onResourcePackResponse(packet.getStatus())) {
+      // The pack was sent by the proxy, so the server must not hear about it.
+      return true;
+    }
+
+    VelocityServerConnection serverConn = player.getConnectionInFlight();
+    if (serverConn != null) {
+      MinecraftConnection smc = serverConn.getConnection();
+      if (smc != null) {
+        smc.write(packet);
+      }
     }
-    return player.onResourcePackResponse(packet.getStatus());
+    return true;
   }
 
   @Override
@@ -78,6 +78,7 @@ import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import net.kyori.adventure.key.Key;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -92,6 +93,10 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
   private static final Logger logger = LogManager.getLogger(ClientPlaySessionHandler.class);
+  private static final int MAXIMUM_PACKETS_TO_FLUSH =
+      Integer.getInteger("velocity.max-packets-per-flush", 8192);
+  private static final long MAXIMUM_FLUSH_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(
+      Integer.getInteger("velocity.max-flush-delay-micros", 1000));
 
   private final ConnectedPlayer player;
   private boolean spawned = false;
@@ -105,6 +110,10 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
   private CompletableFuture<Void> configSwitchFuture;
 
+  private @Nullable MinecraftConnection pendingFlushConnection;
+  private int packetsFlushed;
+  private long firstPendingWriteNanos;
+
   /**
    * Constructs a client play session handler.
    *
@@ -162,6 +171,8 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
   @Override
   public void deactivated() {
+    // The next read might be delivered to another session handler, so don't leave anything behind.
+    flushPendingServerWrites();
     for (PluginMessage message : loginPluginMessages) {
       ReferenceCountUtil.release(message);
     }
@@ -415,7 +426,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
       if (packet instanceof PluginMessage) {
         ((PluginMessage) packet).retain();
       }
-      smc.write(packet);
+      delayedWriteToServer(smc, packet);
     }
   }
 
@@ -429,12 +440,49 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
     MinecraftConnection smc = serverConnection.getConnection();
     if (smc != null && !smc.isClosed() && serverConnection.getPhase().consideredComplete()) {
-      smc.write(buf.retain());
+      delayedWriteToServer(smc, buf.retain());
+    }
+  }
+
+  @Override
+  public void readCompleted() {
+    flushPendingServerWrites();
+  }
+
+  /**
+   * Writes a message to the backend server without flushing it. Writes are batched until the read
+   * completes, {@code velocity.max-packets-per-flush} packets have been queued or the oldest
+   * queued packet has waited longer than {@code velocity.max-flush-delay-micros}.
+   *
+   * @param smc the backend server connection
+   * @param msg the message to write
+   */
+  private void delayedWriteToServer(MinecraftConnection smc, Object msg) {
+    if (pendingFlushConnection != smc) {
+      // Either a new batch is starting or we switched servers mid-read, in which case the old
+      // server must receive what it is still owed before we start writing to the new one.
+      flushPendingServerWrites();
+      pendingFlushConnection = smc;
+      firstPendingWriteNanos = System.nanoTime();
+    }
+    smc.delayedWrite(msg);
+    if (++packetsFlushed >= MAXIMUM_PACKETS_TO_FLUSH
+        || System.nanoTime() - firstPendingWriteNanos >= MAXIMUM_FLUSH_DELAY_NANOS) {
+      flushPendingServerWrites();
+    }
+  }
+
+  private void flushPendingServerWrites() {
+    if (pendingFlushConnection != null) {
+      pendingFlushConnection.flush();
+      pendingFlushConnection = null;
+      packetsFlushed = 0;
     }
   }
 
   @Override
   public void disconnected() {
+    flushPendingServerWrites();
     player.teardown();
   }
 
@@ -475,6 +523,7 @@ public class ClientPlaySessionHandler implements MinecraftSessionHandler {
 
     if (existingConnection != null) {
       // Shut down the existing server connection.
+      flushPendingServerWrites();
       player.setConnectedServer(null);
       existingConnection.disconnect();
 
@@ -51,6 +51,9 @@ import com.velocitypowered.proxy.VelocityServer;
 import com.velocitypowered.proxy.connection.MinecraftConnection;
 import com.velocitypowered.proxy.connection.MinecraftConnectionAssociation;
 import com.velocitypowered.proxy.connection.backend.VelocityServerConnection;
+import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
+import com.velocitypowered.proxy.connection.player.resourcepack.LateResourcePackResponses;
+import com.velocitypowered.proxy.connection.player.resourcepack.ResourcePackDeclineCache;
 import com.velocitypowered.proxy.connection.util.ConnectionMessages;
 import com.velocitypowered.proxy.connection.util.ConnectionRequestResults.Impl;
 import com.velocitypowered.proxy.connection.util.VelocityInboundConnection;
@@ -63,6 +66,7 @@ import com.velocitypowered.proxy.network.protocol.packet.HeaderAndFooter;
 import com.velocitypowered.proxy.network.protocol.packet.KeepAlive;
 import com.velocitypowered.proxy.network.protocol.packet.PluginMessage;
 import com.velocitypowered.proxy.network.protocol.packet.ResourcePackRequest;
+import com.velocitypowered.proxy.network.protocol.packet.ResourcePackResponse;
 import com.velocitypowered.proxy.network.protocol.packet.chat.ChatQueue;
 import com.velocitypowered.proxy.network.protocol.packet.chat.ChatType;
 import com.velocitypowered.proxy.network.protocol.packet.chat.builder.ChatBuilderFactory;
@@ -78,18 +82,20 @@ import com.velocitypowered.proxy.util.ClosestLocaleMatcher;
 import com.velocitypowered.proxy.util.DurationUtils;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
+import io.netty.util.Timeout;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
-import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import net.kyori.adventure.audience.MessageType;
 import net.kyori.adventure.bossbar.BossBar;
 import net.kyori.adventure.identity.Identity;
@@ -157,9 +163,19 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
   private final CompletableFuture<Void> teardownFuture = new CompletableFuture<>();
   private @MonotonicNonNull List<String> serversToTry = null;
   private @MonotonicNonNull Boolean previousResourceResponse;
-  private final Queue<ResourcePackInfo> outstandingResourcePacks = new ArrayDeque<>();
+  private final Deque<ResourcePackInfo> outstandingResourcePacks = new ArrayDeque<>();
   private @Nullable ResourcePackInfo pendingResourcePack;
   private @Nullable ResourcePackInfo appliedResourcePack;
+  private @Nullable ResourcePackInfo prefetchedResourcePack;
+  private @Nullable CompletableFuture<PlayerResourcePackStatusEvent.Status>
+      prefetchedResourcePackResult;
+  private boolean prefetchedResourcePackClaimed;
+  private @Nullable ResourcePackInfo offeredResourcePack;
+  private long resourcePackOfferedAt;
+  private long resourcePackAcceptedAt;
+  private @Nullable Timeout resourcePackTimeout;
+  private final LateResourcePackResponses lateResourcePackResponses =
+      new LateResourcePackResponses();
   private final @NotNull Pointers pointers = Player.super.pointers().toBuilder()
       .withDynamic(Identity.UUID, this::uuid)
       .withDynamic(Identity.NAME, this::username)
@@ -874,6 +890,7 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
   }
 
   void teardown() {
+    cancelResourcePackTimeout();
     if (connectionInFlight != null) {
       connectionInFlight.disconnect();
     }
@@ -976,6 +993,78 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
     outstandingResourcePacks.add(info);
     if (outstandingResourcePacks.size() == 1) {
       tickResourcePackQueue();
+    } else if (server.configuration().isSupersedeQueuedResourcePacks()) {
+      List<ResourcePackInfo> superseded =
+          server.getResourcePackQueuePolicy().collapse(outstandingResourcePacks);
+      for (ResourcePackInfo pack : superseded) {
+        onResourcePackSuperseded(pack);
+      }
+    }
+  }
+
+  /**
+   * Offers a resource pack to the player ahead of the server that is expected to request it, so
+   * the download can overlap with connecting to that server. Nothing is sent if the player has
+   * already been offered a pack.
+   *
+   * @param pack the pack to prefetch
+   */
+  public void prefetchResourcePack(ResourcePackInfo pack) {
+    if (prefetchedResourcePack != null || appliedResourcePack != null
+        || !outstandingResourcePacks.isEmpty()) {
+      return;
+    }
+    prefetchedResourcePack = pack;
+    prefetchedResourcePackResult = new CompletableFuture<>();
+    queueResourcePack(pack);
+  }
+
+  /**
+   * Claims the pack prefetched for this player if it is the same as {@code pack}. A prefetched
+   * pack can only be claimed once.
+   *
+   * @param pack the pack a server requested
+   * @return a future completed with the player's final response to the prefetched pack, or
+   *         {@code null} if no matching pack was prefetched
+   */
+  public @Nullable CompletableFuture<PlayerResourcePackStatusEvent.Status>
+      claimPrefetchedResourcePack(ResourcePackInfo pack) {
+    if (prefetchedResourcePack == null || prefetchedResourcePackClaimed
+        || !VelocityResourcePackInfo.isSamePack(prefetchedResourcePack, pack)) {
+      return null;
+    }
+    prefetchedResourcePackClaimed = true;
+    return prefetchedResourcePackResult;
+  }
+
+  private void completePrefetchedResourcePack(@Nullable ResourcePackInfo pack,
+      PlayerResourcePackStatusEvent.Status status) {
+    if (pack != null && pack == prefetchedResourcePack && prefetchedResourcePackResult != null) {
+      prefetchedResourcePackResult.complete(status);
+    }
+  }
+
+  /**
+   * Reports a pack that was dropped from the queue before being sent the same way the client would
+   * have: accepted and loaded, then replaced by the required pack queued after it. Only required
+   * packs supersede others, so the player either ends up with the later pack or refuses one the
+   * server insists on.
+   */
+  private void onResourcePackSuperseded(ResourcePackInfo pack) {
+    // The player never gets a superseded pack, so a server asking for it has to send it again.
+    completePrefetchedResourcePack(pack, PlayerResourcePackStatusEvent.Status.FAILED_DOWNLOAD);
+    server.eventManager().fire(new PlayerResourcePackStatusEvent(this,
+            PlayerResourcePackStatusEvent.Status.ACCEPTED, pack))
+        .thenRun(() -> server.eventManager().fireAndForget(new PlayerResourcePackStatusEvent(
+            this, PlayerResourcePackStatusEvent.Status.SUCCESSFUL, pack)));
+
+    if (pack.originalOrigin() == ResourcePackInfo.Origin.DOWNSTREAM_SERVER) {
+      VelocityServerConnection backend =
+          connectionInFlight != null ? connectionInFlight : connectedServer;
+      if (backend != null) {
+        byte[] hash = pack.hash();
+        backend.acknowledgeAppliedResourcePack(hash == null ? "" : ByteBufUtil.hexDump(hash));
+      }
     }
   }
 
@@ -993,7 +1082,7 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
               .compareTo(ProtocolVersion.MINECRAFT_1_17) >= 0) {
             break;
           }
-          onResourcePackResponse(PlayerResourcePackStatusEvent.Status.DECLINED);
+          onResourcePackResponse(PlayerResourcePackStatusEvent.Status.DECLINED, false);
           queued = null;
         }
         if (queued == null) {
@@ -1002,20 +1091,71 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
         }
       }
 
-      ResourcePackRequest request = new ResourcePackRequest();
-      request.setUrl(queued.url());
-      if (queued.hash() != null) {
-        request.setHash(ByteBufUtil.hexDump(queued.hash()));
-      } else {
-        request.setHash("");
+      if (declineIfRemembered(queued)) {
+        return;
+      }
+
+      if (queued.hash() == null && server.configuration().isResolveResourcePackHashes()) {
+        // Without a hash the client downloads the pack again on every offer, so work it out first.
+        final ResourcePackInfo unhashed = queued;
+        server.getResourcePackHashResolver().resolve(unhashed.url())
+            .thenAcceptAsync(hash -> {
+              if (connection.isClosed() || outstandingResourcePacks.peek() != unhashed) {
+                return;
+              }
+              ResourcePackInfo pack = unhashed;
+              if (hash != null) {
+                pack = withHash(unhashed, hash);
+                outstandingResourcePacks.poll();
+                outstandingResourcePacks.addFirst(pack);
+                if (prefetchedResourcePack == unhashed) {
+                  prefetchedResourcePack = pack;
+                }
+              }
+              if (!declineIfRemembered(pack)) {
+                sendResourcePackRequest(pack);
+              }
+            }, connection.eventLoop());
+        return;
       }
-      request.setRequired(queued.required());
-      request.setPrompt(queued.prompt());
 
-      connection.write(request);
+      sendResourcePackRequest(queued);
     }
   }
 
+  /**
+   * Copies a pack with the specified hash filled in. The pack itself is left alone, as the plugin
+   * that built it may reuse it for other players or keep it as a map key.
+   */
+  private static ResourcePackInfo withHash(ResourcePackInfo pack, byte[] hash) {
+    VelocityResourcePackInfo.BuilderImpl builder =
+        (VelocityResourcePackInfo.BuilderImpl) pack.asBuilder();
+    VelocityResourcePackInfo hashed = (VelocityResourcePackInfo) builder.hash(hash)
+        .setOrigin(pack.origin())
+        .build();
+    hashed.setOriginalOrigin(pack.originalOrigin());
+    return hashed;
+  }
+
+  private void sendResourcePackRequest(ResourcePackInfo queued) {
+    ResourcePackRequest request = new ResourcePackRequest();
+    request.setUrl(queued.url());
+    if (queued.hash() != null) {
+      request.setHash(ByteBufUtil.hexDump(queued.hash()));
+    } else {
+      request.setHash("");
+    }
+    request.setRequired(queued.required());
+    request.setPrompt(queued.prompt());
+
+    offeredResourcePack = queued;
+    resourcePackOfferedAt = System.nanoTime();
+    resourcePackAcceptedAt = -1;
+    server.getResourcePackTelemetry().offered(queued);
+    armResourcePackTimeout(queued);
+    connection.write(request);
+  }
+
   @Override
   public @Nullable ResourcePackInfo appliedResourcePack() {
     return appliedResourcePack;
@@ -1033,13 +1173,42 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
     appliedResourcePack = null;
   }
 
+  /**
+   * Marks a resource pack as applied without sending it to the player, which is used when the
+   * player already holds the pack from before a server switch.
+   *
+   * @param pack the pack the player has applied
+   */
+  public void restoreAppliedResourcePack(ResourcePackInfo pack) {
+    appliedResourcePack = pack;
+  }
+
   /**
    * Processes a client response to a sent resource-pack.
    */
   public boolean onResourcePackResponse(PlayerResourcePackStatusEvent.Status status) {
+    if (lateResourcePackResponses.ignore(status)) {
+      // The pack timed out and was already answered for, so the server must not hear about it.
+      return true;
+    }
+    return onResourcePackResponse(status, false);
+  }
+
+  private boolean onResourcePackResponse(PlayerResourcePackStatusEvent.Status status,
+      boolean onBehalfOfPlayer) {
     final boolean peek = status == PlayerResourcePackStatusEvent.Status.ACCEPTED;
     final ResourcePackInfo queued = peek
         ? outstandingResourcePacks.peek() : outstandingResourcePacks.poll();
+    if (queued != null && queued == offeredResourcePack) {
+      rememberResourcePackResponse(queued, status);
+    }
+    recordResourcePackResponse(queued, status);
+    if (!peek) {
+      cancelResourcePackTimeout();
+    } else if (queued != null && queued == offeredResourcePack) {
+      // Give the player the full timeout again to download the pack.
+      armResourcePackTimeout(queued);
+    }
 
     server.eventManager().fire(new PlayerResourcePackStatusEvent(this, status, queued))
         .thenAcceptAsync(event -> {
@@ -1059,7 +1228,9 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
         pendingResourcePack = queued;
         break;
       case DECLINED:
-        previousResourceResponse = false;
+        if (!onBehalfOfPlayer) {
+          previousResourceResponse = false;
+        }
         break;
       case SUCCESSFUL:
         appliedResourcePack = queued;
@@ -1073,11 +1244,116 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
     }
 
     if (!peek) {
+      completePrefetchedResourcePack(queued, status);
       connection.eventLoop().execute(this::tickResourcePackQueue);
     }
 
+    // A prefetched pack is answered to its server by answerFromPrefetchedResourcePack, if at all.
     return queued != null
-        && queued.originalOrigin() != ResourcePackInfo.Origin.DOWNSTREAM_SERVER;
+        && (queued.originalOrigin() != ResourcePackInfo.Origin.DOWNSTREAM_SERVER
+        || queued == prefetchedResourcePack);
+  }
+
+  private void armResourcePackTimeout(ResourcePackInfo pack) {
+    cancelResourcePackTimeout();
+    int timeout = server.configuration().getResourcePackResponseTimeout();
+    if (timeout <= 0) {
+      return;
+    }
+    resourcePackTimeout = server.getResourcePackTimer().newTimeout(
+        ignored -> connection.eventLoop().execute(() -> onResourcePackTimeout(pack)),
+        timeout, TimeUnit.SECONDS);
+  }
+
+  private void cancelResourcePackTimeout() {
+    if (resourcePackTimeout != null) {
+      resourcePackTimeout.cancel();
+      resourcePackTimeout = null;
+    }
+  }
+
+  private void onResourcePackTimeout(ResourcePackInfo pack) {
+    if (connection.isClosed() || offeredResourcePack != pack
+        || outstandingResourcePacks.peek() != pack) {
+      return;
+    }
+    resourcePackTimeout = null;
+    logger.warn("{} did not finish applying resource pack {} in time, assuming the download "
+        + "failed", this, pack.url());
+
+    lateResourcePackResponses.timedOut();
+    answerResourcePackOnBehalf(pack, PlayerResourcePackStatusEvent.Status.FAILED_DOWNLOAD);
+  }
+
+  private boolean declineIfRemembered(ResourcePackInfo pack) {
+    byte[] hash = pack.hash();
+    if (pack.required() || hash == null
+        || !server.getResourcePackDeclineCache().isDeclined(uuid(), hash)) {
+      return false;
+    }
+    logger.debug("{} declined resource pack {} before, declining it again on their behalf",
+        this, pack.url());
+    answerResourcePackOnBehalf(pack, PlayerResourcePackStatusEvent.Status.DECLINED);
+    return true;
+  }
+
+  /**
+   * Answers the pack at the head of the queue without involving the client, passing the answer on
+   * to the backend server if the pack came from one.
+   */
+  private void answerResourcePackOnBehalf(ResourcePackInfo pack,
+      PlayerResourcePackStatusEvent.Status status) {
+    boolean handledByProxy = onResourcePackResponse(status, true);
+    if (!handledByProxy) {
+      VelocityServerConnection backend =
+          connectionInFlight != null ? connectionInFlight : connectedServer;
+      MinecraftConnection backendConnection = backend == null ? null : backend.getConnection();
+      if (backendConnection != null) {
+        byte[] hash = pack.hash();
+        backendConnection.write(new ResourcePackResponse(
+            hash == null ? "" : ByteBufUtil.hexDump(hash), status));
+      }
+    }
+  }
+
+  private void rememberResourcePackResponse(ResourcePackInfo pack,
+      PlayerResourcePackStatusEvent.Status status) {
+    byte[] hash = pack.hash();
+    if (hash == null || pack.required()) {
+      return;
+    }
+    ResourcePackDeclineCache declines = server.getResourcePackDeclineCache();
+    if (status == PlayerResourcePackStatusEvent.Status.DECLINED) {
+      declines.declined(uuid(), hash);
+    } else if (status == PlayerResourcePackStatusEvent.Status.SUCCESSFUL) {
+      declines.forget(uuid(), hash);
+    }
+  }
+
+  private void recordResourcePackResponse(@Nullable ResourcePackInfo queued,
+      PlayerResourcePackStatusEvent.Status status) {
+    if (queued == null || queued != offeredResourcePack) {
+      // Answered by the proxy on the player's behalf, the player never saw it.
+      return;
+    }
+    long now = System.nanoTime();
+    long elapsed;
+    switch (status) {
+      case ACCEPTED:
+        elapsed = now - resourcePackOfferedAt;
+        resourcePackAcceptedAt = now;
+        break;
+      case DECLINED:
+        elapsed = now - resourcePackOfferedAt;
+        break;
+      default:
+        elapsed = resourcePackAcceptedAt < 0 ? -1 : now - resourcePackAcceptedAt;
+        break;
+    }
+    if (status != PlayerResourcePackStatusEvent.Status.ACCEPTED) {
+      offeredResourcePack = null;
+    }
+    server.getResourcePackTelemetry().responded(queued, status, elapsed);
   }
 
   /**
@@ -1106,6 +1382,7 @@ public class ConnectedPlayer implements MinecraftConnectionAssociation, Player,
   public void switchToConfigState() {
     CompletableFuture.runAsync(() -> {
       connection.write(new StartUpdate());
+      connection.releaseHeldWrites();
       connection.getChannel().pipeline()
           .get(MinecraftEncoder.class).setState(StateRegistry.CONFIG);
       // Make sure we don't send any play packets to the player after update start
@@ -46,7 +46,9 @@ import java.security.GeneralSecurityException;
 import java.security.KeyPair;
 import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadLocalRandom;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -183,94 +185,126 @@ public class InitialLoginSessionHandler implements MinecraftSessionHandler {
       throw new IllegalStateException("No EncryptionRequest packet sent yet.");
     }
 
+    // The RSA operations are slow enough to hold up every other connection on this event loop
+    // during a join storm, so they run on the login crypto pool instead.
+    IdentifiedKey playerKey = inbound.identifiedKey();
+    byte[] verify = this.verify;
+    CompletableFuture<byte[]> sharedSecret;
     try {
-      KeyPair serverKeyPair = server.getServerKeyPair();
-      if (inbound.identifiedKey() != null) {
-        IdentifiedKey playerKey = inbound.identifiedKey();
-        if (!playerKey.verifyDataSignature(packet.getVerifyToken(), verify,
-            Longs.toByteArray(packet.getSalt()))) {
-          throw new IllegalStateException("Invalid client public signature.");
-        }
-      } else {
-        byte[] decryptedVerifyToken = decryptRsa(serverKeyPair, packet.getVerifyToken());
-        if (!MessageDigest.isEqual(verify, decryptedVerifyToken)) {
-          throw new IllegalStateException("Unable to successfully decrypt the verification token.");
-        }
+      sharedSecret = server.getLoginCryptoExecutor()
+          .submit(() -> decryptSharedSecret(packet, playerKey, verify));
+    } catch (RejectedExecutionException e) {
+      inbound.disconnect(
+          Component.translatable("velocity.error.login-crypto-busy", NamedTextColor.RED));
+      return true;
+    }
+
+    sharedSecret.whenCompleteAsync((decryptedSharedSecret, ex) -> {
+      if (mcConnection.isClosed()) {
+        // The player was disconnected
+        return;
       }
 
-      byte[] decryptedSharedSecret = decryptRsa(serverKeyPair, packet.getSharedSecret());
-      String serverId = generateServerId(decryptedSharedSecret, serverKeyPair.getPublic());
+      if (ex != null) {
+        if (ex instanceof GeneralSecurityException) {
+          logger.error("Unable to enable encryption", ex);
+        }
+        // A bad verify token or signature is handled like any other invalid login packet.
+        mcConnection.close(true);
+        return;
+      }
 
-      String playerIp = ((InetSocketAddress) mcConnection.getRemoteAddress()).getHostString();
-      String url = String.format(MOJANG_HASJOINED_URL,
-          urlFormParameterEscaper().escape(login.getUsername()), serverId);
+      authenticate(login, decryptedSharedSecret);
+    }, mcConnection.eventLoop());
+    return true;
+  }
 
-      if (server.configuration().shouldPreventClientProxyConnections()) {
-        url += "&ip=" + urlFormParameterEscaper().escape(playerIp);
+  private byte[] decryptSharedSecret(EncryptionResponse packet, @Nullable IdentifiedKey playerKey,
+      byte[] verify) throws GeneralSecurityException {
+    KeyPair serverKeyPair = server.getServerKeyPair();
+    if (playerKey != null) {
+      if (!playerKey.verifyDataSignature(packet.getVerifyToken(), verify,
+          Longs.toByteArray(packet.getSalt()))) {
+        throw new IllegalStateException("Invalid client public signature.");
       }
+    } else {
+      byte[] decryptedVerifyToken = decryptRsa(serverKeyPair, packet.getVerifyToken());
+      if (!MessageDigest.isEqual(verify, decryptedVerifyToken)) {
+        throw new IllegalStateException("Unable to successfully decrypt the verification token.");
+      }
+    }
+    return decryptRsa(serverKeyPair, packet.getSharedSecret());
+  }
 
-      ListenableFuture<Response> hasJoinedResponse = server.getAsyncHttpClient().prepareGet(url)
-          .execute();
-      hasJoinedResponse.addListener(() -> {
-        if (mcConnection.isClosed()) {
-          // The player disconnected after we authenticated them.
-          return;
-        }
+  private void authenticate(ServerLogin login, byte[] decryptedSharedSecret) {
+    String serverId = generateServerId(decryptedSharedSecret,
+        server.getServerKeyPair().getPublic());
 
-        // Go ahead and enable encryption. Once the client sends EncryptionResponse, encryption
-        // is enabled.
-        try {
-          mcConnection.enableEncryption(decryptedSharedSecret);
-        } catch (GeneralSecurityException e) {
-          logger.error("Unable to enable encryption for connection", e);
-          // At this point, the connection is encrypted, but something's wrong on our side and
-          // we can't do anything about it.
-          mcConnection.close(true);
-          return;
-        }
+    String playerIp = ((InetSocketAddress) mcConnection.getRemoteAddress()).getHostString();
+    String url = String.format(MOJANG_HASJOINED_URL,
+        urlFormParameterEscaper().escape(login.getUsername()), serverId);
+
+    if (server.configuration().shouldPreventClientProxyConnections()) {
+      url += "&ip=" + urlFormParameterEscaper().escape(playerIp);
+    }
+
+    ListenableFuture<Response> hasJoinedResponse = server.getAsyncHttpClient().prepareGet(url)
+        .execute();
+    hasJoinedResponse.addListener(() -> {
+      if (mcConnection.isClosed()) {
+        // The player disconnected after we authenticated them.
+        return;
+      }
 
-        try {
-          Response profileResponse = hasJoinedResponse.get();
-          if (profileResponse.getStatusCode() == 200) {
-            final GameProfile profile = GENERAL_GSON.fromJson(profileResponse.getResponseBody(),
-                GameProfile.class);
-            // Not so fast, now we verify the public key for 1.19.1+
-            if (inbound.identifiedKey() != null
-                && inbound.identifiedKey().revision() == IdentifiedKey.Revision.LINKED_V2
-                && inbound.identifiedKey() instanceof IdentifiedKeyImpl) {
-              IdentifiedKeyImpl key = (IdentifiedKeyImpl) inbound.identifiedKey();
-              if (!key.internalAddHolder(profile.uuid())) {
-                inbound.disconnect(
-                    Component.translatable("multiplayer.disconnect.invalid_public_key"));
-              }
+      // Go ahead and enable encryption. Once the client sends EncryptionResponse, encryption
+      // is enabled.
+      try {
+        mcConnection.enableEncryption(decryptedSharedSecret);
+      } catch (GeneralSecurityException e) {
+        logger.error("Unable to enable encryption for connection", e);
+        // At this point, the connection is encrypted, but something's wrong on our side and
+        // we can't do anything about it.
+        mcConnection.close(true);
+        return;
+      }
+
+      try {
+        Response profileResponse = hasJoinedResponse.get();
+        if (profileResponse.getStatusCode() == 200) {
+          final GameProfile profile = GENERAL_GSON.fromJson(profileResponse.getResponseBody(),
+              GameProfile.class);
+          // Not so fast, now we verify the public key for 1.19.1+
+          if (inbound.identifiedKey() != null
+              && inbound.identifiedKey().revision() == IdentifiedKey.Revision.LINKED_V2
+              && inbound.identifiedKey() instanceof IdentifiedKeyImpl) {
+            IdentifiedKeyImpl key = (IdentifiedKeyImpl) inbound.identifiedKey();
+            if (!key.internalAddHolder(profile.uuid())) {
+              inbound.disconnect(
+                  Component.translatable("multiplayer.disconnect.invalid_public_key"));
             }
-            // All went well, initialize the session.
-            mcConnection.setActiveSessionHandler(StateRegistry.LOGIN,
-                new AuthSessionHandler(server, inbound, profile, true));
-          } else if (profileResponse.getStatusCode() == 204) {
-            // Apparently an offline-mode user logged onto this online-mode proxy.
-            inbound.disconnect(
-                Component.translatable("velocity.error.online-mode-only", NamedTextColor.RED));
-          } else {
-            // Something else went wrong
-            logger.error(
-                "Got an unexpected error code {} whilst contacting Mojang to log in {} ({})",
-                profileResponse.getStatusCode(), login.getUsername(), playerIp);
-            inbound.disconnect(Component.translatable("multiplayer.disconnect.authservers_down"));
           }
-        } catch (ExecutionException e) {
-          logger.error("Unable to authenticate with Mojang", e);
+          // All went well, initialize the session.
+          mcConnection.setActiveSessionHandler(StateRegistry.LOGIN,
+              new AuthSessionHandler(server, inbound, profile, true));
+        } else if (profileResponse.getStatusCode() == 204) {
+          // Apparently an offline-mode user logged onto this online-mode proxy.
+          inbound.disconnect(
+              Component.translatable("velocity.error.online-mode-only", NamedTextColor.RED));
+        } else {
+          // Something else went wrong
+          logger.error(
+              "Got an unexpected error code {} whilst contacting Mojang to log in {} ({})",
+              profileResponse.getStatusCode(), login.getUsername(), playerIp);
           inbound.disconnect(Component.translatable("multiplayer.disconnect.authservers_down"));
-        } catch (InterruptedException e) {
-          // not much we can do usefully
-          Thread.currentThread().interrupt();
         }
-      }, mcConnection.eventLoop());
-    } catch (GeneralSecurityException e) {
-      logger.error("Unable to enable encryption", e);
-      mcConnection.close(true);
-    }
-    return true;
+      } catch (ExecutionException e) {
+        logger.error("Unable to authenticate with Mojang", e);
+        inbound.disconnect(Component.translatable("multiplayer.disconnect.authservers_down"));
+      } catch (InterruptedException e) {
+        // not much we can do usefully
+        Thread.currentThread().interrupt();
+      }
+    }, mcConnection.eventLoop());
   }
 
   private EncryptionRequest generateEncryptionRequest() {
@@ -88,7 +88,7 @@ public class StatusSessionHandler implements MinecraftSessionHandler {
     }
     this.pingReceived = true;
 
-    server.getServerListPingHandler().getPacketResponse(this.inbound)
+    server.getServerListPingHandler().getEncodedPacketResponse(this.inbound)
         .thenAcceptAsync(connection::write, connection.eventLoop())
         .exceptionally((ex) -> {
           logger.error("Exception while handling status request {}", packet, ex);
@@ -19,6 +19,7 @@ package com.velocitypowered.proxy.connection.player;
 
 import com.google.common.base.Preconditions;
 import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import java.util.Arrays;
 import net.kyori.adventure.text.Component;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -64,6 +65,23 @@ public final class VelocityResourcePackInfo implements ResourcePackInfo {
     return hash == null ? null : hash.clone(); // Thanks spotbugs, very helpful.
   }
 
+  /**
+   * Determines whether two resource packs refer to the same content. Packs are compared by their
+   * hashes when both carry one, and by their URLs otherwise.
+   *
+   * @param first the first pack
+   * @param second the second pack
+   * @return whether the packs are the same
+   */
+  public static boolean isSamePack(ResourcePackInfo first, ResourcePackInfo second) {
+    byte[] firstHash = first.hash();
+    byte[] secondHash = second.hash();
+    if (firstHash != null && secondHash != null) {
+      return Arrays.equals(firstHash, secondHash);
+    }
+    return first.url().equals(second.url());
+  }
+
   @Override
   public Origin origin() {
     return origin;
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.velocitypowered.api.event.player.PlayerResourcePackStatusEvent.Status;
+
+/**
+ * Keeps track of the answers a client still owes for resource packs that timed out. The proxy
+ * answers a timed out pack on the player's behalf and moves on to the next one, but the client is
+ * usually still working on the pack and answers it eventually. Responses carry no reliable way to
+ * tell which pack they are for, so that late answer would otherwise be taken for the next pack.
+ *
+ * <p>Instances are not thread-safe and are only used from the player's event loop.
+ */
+public final class LateResourcePackResponses {
+
+  private int outstanding;
+
+  /**
+   * Records that the client will still answer a pack which the proxy has already answered on its
+   * behalf.
+   */
+  public void timedOut() {
+    outstanding++;
+  }
+
+  /**
+   * Determines whether a response from the client belongs to a pack that already timed out, in
+   * which case it must be ignored. Each timed out pack absorbs everything up to and including its
+   * final answer.
+   *
+   * @param status the status the client sent
+   * @return whether to ignore the response
+   */
+  public boolean ignore(Status status) {
+    if (outstanding == 0) {
+      return false;
+    }
+    if (status != Status.ACCEPTED) {
+      outstanding--;
+    }
+    return true;
+  }
+}
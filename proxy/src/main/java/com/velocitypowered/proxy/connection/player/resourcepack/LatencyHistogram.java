@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with fixed buckets, cheap enough to update on every resource pack
+ * response.
+ */
+final class LatencyHistogram {
+
+  // Upper bounds of each bucket, in milliseconds. The last bucket holds everything longer.
+  private static final long[] BOUNDS = {
+      50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000, 120_000
+  };
+
+  private final LongAdder[] counts = new LongAdder[BOUNDS.length + 1];
+
+  LatencyHistogram() {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  void record(long nanos) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (bucket < BOUNDS.length && millis > BOUNDS[bucket]) {
+      bucket++;
+    }
+    counts[bucket].increment();
+  }
+
+  /**
+   * Returns the upper bound of the bucket the specified percentile falls in. Durations beyond the
+   * largest bucket are reported as that bucket's bound.
+   *
+   * @param percentile the percentile, between 0 and 1
+   * @return the approximate duration at the percentile, or zero if nothing has been recorded
+   */
+  Duration percentile(double percentile) {
+    long[] snapshot = new long[counts.length];
+    long total = 0;
+    for (int i = 0; i < counts.length; i++) {
+      snapshot[i] = counts[i].sum();
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return Duration.ZERO;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile * total));
+    long seen = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Duration.ofMillis(BOUNDS[Math.min(i, BOUNDS.length - 1)]);
+      }
+    }
+    return Duration.ofMillis(BOUNDS[BOUNDS.length - 1]);
+  }
+}
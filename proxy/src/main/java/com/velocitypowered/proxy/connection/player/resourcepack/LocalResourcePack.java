@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import io.netty.buffer.ByteBufUtil;
+import java.nio.file.Path;
+
+/**
+ * A resource pack stored in the proxy's resource pack directory.
+ */
+public final class LocalResourcePack {
+
+  private final String id;
+  private final Path path;
+  private final long size;
+  private final long lastModified;
+  private final byte[] hash;
+  private final String etag;
+
+  LocalResourcePack(String id, Path path, long size, long lastModified, byte[] hash) {
+    this.id = id;
+    this.path = path;
+    this.size = size;
+    this.lastModified = lastModified;
+    this.hash = hash;
+    this.etag = '"' + ByteBufUtil.hexDump(hash) + '"';
+  }
+
+  public String id() {
+    return id;
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public long lastModified() {
+    return lastModified;
+  }
+
+  public byte[] hash() {
+    return hash.clone();
+  }
+
+  /**
+   * Returns the HTTP entity tag of the pack, which is its quoted hex SHA-1 hash.
+   *
+   * @return the entity tag
+   */
+  public String etag() {
+    return etag;
+  }
+
+  @Override
+  public String toString() {
+    return "LocalResourcePack{"
+        + "id='" + id + '\''
+        + ", path=" + path
+        + ", size=" + size
+        + ", etag=" + etag
+        + '}';
+  }
+}
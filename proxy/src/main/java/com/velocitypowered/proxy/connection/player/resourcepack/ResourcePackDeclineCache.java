@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import io.netty.buffer.ByteBufUtil;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers which optional resource packs each player declined, so the packs can be declined on
+ * their behalf when they are offered again, even after the player reconnects. Packs are identified
+ * by their hash, and declines are forgotten after a while, so players are eventually asked again.
+ */
+public final class ResourcePackDeclineCache {
+
+  private static final int MAX_ENTRIES =
+      Integer.getInteger("velocity.resource-pack-decline-cache-size", 100_000);
+
+  private final long ttlMillis;
+  private final LongSupplier clock;
+  // Maps a player and pack to the time, in milliseconds since the epoch, the pack was declined.
+  private final Cache<String, Long> declines;
+
+  /**
+   * Creates a new cache.
+   *
+   * @param ttl how long to remember declines for, or zero to not remember them at all
+   */
+  public ResourcePackDeclineCache(Duration ttl) {
+    this(ttl, MAX_ENTRIES, System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  ResourcePackDeclineCache(Duration ttl, int maximumSize, LongSupplier clock) {
+    Preconditions.checkArgument(!ttl.isNegative(), "ttl must not be negative");
+    this.ttlMillis = ttl.toMillis();
+    this.clock = Preconditions.checkNotNull(clock, "clock");
+    this.declines = Caffeine.newBuilder()
+        .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.getAsLong()))
+        .maximumSize(maximumSize)
+        .expireAfter(new Expiry<String, Long>() {
+          @Override
+          public long expireAfterCreate(String key, Long declinedAt, long currentTime) {
+            return remainingNanos(declinedAt);
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Long declinedAt, long currentTime,
+              long currentDuration) {
+            return remainingNanos(declinedAt);
+          }
+
+          @Override
+          public long expireAfterRead(String key, Long declinedAt, long currentTime,
+              long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+  }
+
+  public boolean isEnabled() {
+    return ttlMillis > 0;
+  }
+
+  /**
+   * Remembers that the player declined the pack with the specified hash.
+   *
+   * @param player the player
+   * @param hash the hash of the pack
+   */
+  public void declined(UUID player, byte[] hash) {
+    if (isEnabled()) {
+      declines.put(key(player, hash), clock.getAsLong());
+    }
+  }
+
+  /**
+   * Forgets that the player declined the pack with the specified hash, if they did.
+   *
+   * @param player the player
+   * @param hash the hash of the pack
+   */
+  public void forget(UUID player, byte[] hash) {
+    declines.invalidate(key(player, hash));
+  }
+
+  /**
+   * Checks whether the player recently declined the pack with the specified hash.
+   *
+   * @param player the player
+   * @param hash the hash of the pack
+   * @return whether the player declined the pack
+   */
+  public boolean isDeclined(UUID player, byte[] hash) {
+    return isEnabled() && declines.getIfPresent(key(player, hash)) != null;
+  }
+
+  /**
+   * Adds the declines stored in the specified snapshot. Declines that have expired since are
+   * skipped, as are malformed lines.
+   *
+   * @param snapshot the snapshot file
+   * @throws IOException if the snapshot exists but can't be read
+   */
+  public void load(Path snapshot) throws IOException {
+    if (!isEnabled() || !Files.isRegularFile(snapshot)) {
+      return;
+    }
+    long now = clock.getAsLong();
+    try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.US_ASCII)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.split(" ");
+        if (parts.length != 2) {
+          continue;
+        }
+        try {
+          long declinedAt = Long.parseLong(parts[1]);
+          if (now - declinedAt < ttlMillis) {
+            declines.put(parts[0], declinedAt);
+          }
+        } catch (NumberFormatException e) {
+          // Skip the line.
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes the declines that have not expired yet to the specified snapshot file.
+   *
+   * @param snapshot the snapshot file
+   * @throws IOException if the snapshot can't be written
+   */
+  public void save(Path snapshot) throws IOException {
+    Path parent = snapshot.toAbsolutePath().getParent();
+    if (parent != null && !Files.isDirectory(parent)) {
+      Files.createDirectories(parent);
+    }
+    Path temporary = Files.createTempFile(parent, snapshot.getFileName().toString(), ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temporary,
+          StandardCharsets.US_ASCII)) {
+        for (Map.Entry<String, Long> entry : declines.asMap().entrySet()) {
+          writer.write(entry.getKey() + ' ' + entry.getValue());
+          writer.newLine();
+        }
+      }
+      Files.move(temporary, snapshot, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private long remainingNanos(long declinedAt) {
+    long remaining = ttlMillis - (clock.getAsLong() - declinedAt);
+    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remaining));
+  }
+
+  private static String key(UUID player, byte[] hash) {
+    return player + ":" + ByteBufUtil.hexDump(hash);
+  }
+}
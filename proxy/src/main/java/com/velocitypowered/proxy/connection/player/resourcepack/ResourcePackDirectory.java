@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.google.common.collect.ImmutableMap;
+import io.netty.buffer.ByteBufUtil;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Keeps track of the resource packs in a local directory. Every {@code .zip} file in the directory
+ * is a pack, identified by its file name without the extension, and is hashed when it is first
+ * seen or whenever its size or modification time changes. Packs are hashed in parallel by a
+ * {@link ResourcePackHasher}.
+ *
+ * <p>If the directory has a {@link ResourcePackOptimizer}, the packs it hands out are replaced by
+ * their optimized copies as soon as those are ready. The copies have a different hash, so they are
+ * served under their own URL, while the original pack stays available under its old one.
+ */
+public final class ResourcePackDirectory {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackDirectory.class);
+  private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9_.-]+");
+  private static final String EXTENSION = ".zip";
+
+  private final Path directory;
+  private final ResourcePackHasher hasher;
+  private final @Nullable ResourcePackOptimizer optimizer;
+  // The packs as they are in the directory, and the packs to serve in their place.
+  private volatile Map<String, LocalResourcePack> sources = ImmutableMap.of();
+  private volatile Map<String, LocalResourcePack> packs = ImmutableMap.of();
+
+  public ResourcePackDirectory(Path directory, ResourcePackHasher hasher) {
+    this(directory, hasher, null);
+  }
+
+  /**
+   * Creates a new resource pack directory.
+   *
+   * @param directory the directory to load packs from
+   * @param hasher the hasher used to hash the packs
+   * @param optimizer the optimizer used to make optimized copies of the packs, if any
+   */
+  public ResourcePackDirectory(Path directory, ResourcePackHasher hasher,
+      @Nullable ResourcePackOptimizer optimizer) {
+    this.directory = directory;
+    this.hasher = hasher;
+    this.optimizer = optimizer;
+  }
+
+  public Path directory() {
+    return directory;
+  }
+
+  /**
+   * Rescans the directory, hashing packs that are new or have changed since the last scan.
+   *
+   * @throws IOException if the directory can't be listed
+   */
+  public synchronized void reload() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      Files.createDirectories(directory);
+    }
+
+    Map<String, LocalResourcePack> previous = this.sources;
+    ImmutableMap.Builder<String, LocalResourcePack> scanned = ImmutableMap.builder();
+    List<PendingPack> pending = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+      for (Path path : stream) {
+        String fileName = path.getFileName().toString();
+        String id = fileName.substring(0, fileName.length() - EXTENSION.length());
+        if (!VALID_ID.matcher(id).matches()) {
+          logger.warn("Ignoring resource pack {}: only letters, digits, '_', '-' and '.' are "
+              + "allowed in pack file names", path);
+          continue;
+        }
+
+        try {
+          BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+          if (!attributes.isRegularFile()) {
+            continue;
+          }
+          long size = attributes.size();
+          long lastModified = attributes.lastModifiedTime().toMillis();
+          LocalResourcePack known = previous.get(id);
+          if (known != null && known.size() == size && known.lastModified() == lastModified) {
+            scanned.put(id, known);
+          } else {
+            pending.add(new PendingPack(id, path, size, lastModified, hasher.hash(path)));
+          }
+        } catch (IOException e) {
+          logger.error("Unable to read resource pack {}", path, e);
+        }
+      }
+    }
+
+    for (PendingPack pack : pending) {
+      try {
+        scanned.put(pack.id, new LocalResourcePack(pack.id, pack.path, pack.size,
+            pack.lastModified, pack.hash.join()));
+      } catch (CompletionException e) {
+        logger.error("Unable to read resource pack {}", pack.path, e.getCause());
+      }
+    }
+    Map<String, LocalResourcePack> loaded = scanned.build();
+    Map<String, LocalResourcePack> served = new LinkedHashMap<>(loaded);
+    for (Map.Entry<String, LocalResourcePack> entry : loaded.entrySet()) {
+      // Keep serving the optimized copies of packs that have not changed.
+      LocalResourcePack optimized = this.packs.get(entry.getKey());
+      if (optimized != null && previous.get(entry.getKey()) == entry.getValue()) {
+        served.put(entry.getKey(), optimized);
+      }
+    }
+    this.sources = loaded;
+    this.packs = ImmutableMap.copyOf(served);
+    logger.info("Loaded {} resource pack(s) from {}", loaded.size(), directory);
+
+    if (optimizer != null) {
+      optimizer.retain(loaded.values());
+      for (LocalResourcePack source : loaded.values()) {
+        if (this.packs.get(source.id()) == source) {
+          optimizer.optimize(source).whenComplete((optimized, throwable) -> {
+            if (throwable != null) {
+              logger.error("Unable to optimize resource pack {}", source.path(), throwable);
+            } else {
+              publish(source, optimized);
+            }
+          });
+        }
+      }
+    }
+  }
+
+  /**
+   * Looks up a pack by its ID.
+   *
+   * @param id the ID of the pack
+   * @return the pack, if there is one with that ID
+   */
+  public Optional<LocalResourcePack> pack(String id) {
+    return Optional.ofNullable(packs.get(id));
+  }
+
+  /**
+   * Looks up a pack by its ID, ignoring its optimized copy.
+   *
+   * @param id the ID of the pack
+   * @return the pack as it is in the directory, if there is one with that ID
+   */
+  public Optional<LocalResourcePack> source(String id) {
+    return Optional.ofNullable(sources.get(id));
+  }
+
+  /**
+   * Looks up the optimized copy of a pack.
+   *
+   * @param id the ID of the pack
+   * @param hash the hex SHA-1 hash of the optimized copy
+   * @return the optimized copy, if the pack has one with that hash
+   */
+  public Optional<LocalResourcePack> optimized(String id, String hash) {
+    LocalResourcePack pack = packs.get(id);
+    if (pack == null || !isOptimized(pack) || !ByteBufUtil.hexDump(pack.hash()).equals(hash)) {
+      return Optional.empty();
+    }
+    return Optional.of(pack);
+  }
+
+  /**
+   * Determines whether the specified pack is an optimized copy rather than a pack in the
+   * directory.
+   *
+   * @param pack the pack
+   * @return whether the pack is an optimized copy
+   */
+  public boolean isOptimized(LocalResourcePack pack) {
+    LocalResourcePack source = sources.get(pack.id());
+    return source != null && source != pack && packs.get(pack.id()) == pack;
+  }
+
+  public Map<String, LocalResourcePack> packs() {
+    return packs;
+  }
+
+  /**
+   * Looks up a pack by its hash, which may be the hash of the pack or of its optimized copy.
+   *
+   * @param hash the SHA-1 hash of the pack
+   * @return the pack, if there is one with that hash
+   */
+  public Optional<LocalResourcePack> packByHash(byte[] hash) {
+    for (Map<String, LocalResourcePack> candidates : List.of(packs, sources)) {
+      for (LocalResourcePack pack : candidates.values()) {
+        if (Arrays.equals(pack.hash(), hash)) {
+          return Optional.of(pack);
+        }
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Stops optimizing packs.
+   */
+  public void shutdown() {
+    if (optimizer != null) {
+      optimizer.shutdown();
+    }
+  }
+
+  private synchronized void publish(LocalResourcePack source, LocalResourcePack optimized) {
+    if (sources.get(source.id()) != source) {
+      // The pack changed while it was being optimized.
+      return;
+    }
+    if (optimized.size() >= source.size()) {
+      logger.debug("Not serving the optimized copy of resource pack {}, it is not smaller",
+          source.id());
+      return;
+    }
+    Map<String, LocalResourcePack> served = new LinkedHashMap<>(packs);
+    served.put(source.id(), optimized);
+    this.packs = ImmutableMap.copyOf(served);
+  }
+
+  private static final class PendingPack {
+
+    private final String id;
+    private final Path path;
+    private final long size;
+    private final long lastModified;
+    private final CompletableFuture<byte[]> hash;
+
+    private PendingPack(String id, Path path, long size, long lastModified,
+        CompletableFuture<byte[]> hash) {
+      this.id = id;
+      this.path = path;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+  }
+}
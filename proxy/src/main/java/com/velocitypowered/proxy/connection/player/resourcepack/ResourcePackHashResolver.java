@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Computes the SHA-1 hashes of resource packs offered without one, so clients can reuse packs
+ * they already downloaded instead of fetching them again on every offer.
+ *
+ * <p>Each pack is downloaded through the proxy's {@link AsyncHttpClient} and hashed as it streams
+ * in, so it is never held in memory. Results are cached per URL together with the
+ * {@code ETag} and {@code Last-Modified} validators the server sent. Once an entry is older than
+ * the revalidation interval, the next lookup makes a conditional request and only downloads the
+ * pack again if it changed. Entries that aren't used for the TTL are evicted.
+ */
+public final class ResourcePackHashResolver {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackHashResolver.class);
+
+  private static final long MAX_PACK_SIZE =
+      Long.getLong("velocity.resource-pack-hash-max-size", 250L * 1024 * 1024);
+  private static final int MAX_CACHED_PACKS = 1024;
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_NOT_MODIFIED = 304;
+
+  private final AsyncHttpClient httpClient;
+  private final Ticker ticker;
+  private final long revalidateNanos;
+  private final Cache<String, ResolvedHash> cache;
+  private final Map<String, CompletableFuture<ResolvedHash>> inFlight = new ConcurrentHashMap<>();
+
+  /**
+   * Creates a resolver using the TTL and revalidation interval from the
+   * {@code velocity.resource-pack-hash-ttl} and {@code velocity.resource-pack-hash-revalidate}
+   * system properties, both in seconds.
+   *
+   * @param httpClient the client to download packs with
+   */
+  public ResourcePackHashResolver(AsyncHttpClient httpClient) {
+    this(httpClient,
+        Duration.ofSeconds(Long.getLong("velocity.resource-pack-hash-ttl", 3600)),
+        Duration.ofSeconds(Long.getLong("velocity.resource-pack-hash-revalidate", 300)),
+        Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ResourcePackHashResolver(AsyncHttpClient httpClient, Duration ttl, Duration revalidateAfter,
+      Ticker ticker) {
+    this.httpClient = Preconditions.checkNotNull(httpClient, "httpClient");
+    this.ticker = Preconditions.checkNotNull(ticker, "ticker");
+    this.revalidateNanos = revalidateAfter.toNanos();
+    this.cache = Caffeine.newBuilder()
+        .ticker(ticker)
+        .maximumSize(MAX_CACHED_PACKS)
+        .expireAfterAccess(ttl)
+        .build();
+  }
+
+  /**
+   * Resolves the SHA-1 hash of the resource pack at the specified {@code url}. The returned future
+   * never completes exceptionally; if the pack can't be downloaded it completes with {@code null}.
+   *
+   * @param url the URL of the resource pack
+   * @return a future with the hash of the pack, or {@code null} if it could not be determined
+   */
+  public CompletableFuture<byte[]> resolve(String url) {
+    Preconditions.checkNotNull(url, "url");
+    String scheme = url.length() >= 8 ? url.substring(0, 8).toLowerCase(Locale.ROOT) : "";
+    if (!scheme.startsWith("http://") && !scheme.startsWith("https://")) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    ResolvedHash cached = cache.getIfPresent(url);
+    if (cached != null && ticker.read() - cached.validatedAt < revalidateNanos) {
+      return CompletableFuture.completedFuture(cached.hash.clone());
+    }
+
+    // Only download each pack once, no matter how many players it is offered to at the same time.
+    CompletableFuture<ResolvedHash> created = new CompletableFuture<>();
+    CompletableFuture<ResolvedHash> existing = inFlight.putIfAbsent(url, created);
+    if (existing != null) {
+      return existing.thenApply(ResourcePackHashResolver::hashOf);
+    }
+
+    fetch(url, cached).whenComplete((resolved, ex) -> {
+      if (ex != null) {
+        logger.warn("Unable to compute the hash of resource pack {}", url, ex);
+        resolved = null;
+      } else if (resolved != null) {
+        cache.put(url, resolved);
+      }
+      inFlight.remove(url, created);
+      created.complete(resolved);
+    });
+    return created.thenApply(ResourcePackHashResolver::hashOf);
+  }
+
+  /**
+   * Forgets every cached hash.
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private CompletableFuture<ResolvedHash> fetch(String url,
+      @Nullable ResolvedHash previous) {
+    BoundRequestBuilder request = httpClient.prepareGet(url).setFollowRedirect(true);
+    if (previous != null) {
+      if (previous.etag != null) {
+        request.setHeader(HttpHeaderNames.IF_NONE_MATCH, previous.etag);
+      }
+      if (previous.lastModified != null) {
+        request.setHeader(HttpHeaderNames.IF_MODIFIED_SINCE, previous.lastModified);
+      }
+    }
+    try {
+      return request.execute(new HashingHandler(url, previous)).toCompletableFuture();
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private static @Nullable byte[] hashOf(@Nullable ResolvedHash resolved) {
+    return resolved == null ? null : resolved.hash.clone();
+  }
+
+  private final class HashingHandler implements AsyncHandler<ResolvedHash> {
+
+    private final String url;
+    private final @Nullable ResolvedHash previous;
+    private final MessageDigest digest;
+    private int status;
+    private boolean failed;
+    private long received;
+    private @Nullable String etag;
+    private @Nullable String lastModified;
+
+    private HashingHandler(String url, @Nullable ResolvedHash previous) {
+      this.url = url;
+      this.previous = previous;
+      try {
+        this.digest = MessageDigest.getInstance("SHA-1");
+      } catch (NoSuchAlgorithmException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) {
+      status = responseStatus.getStatusCode();
+      if (status == HTTP_NOT_MODIFIED && previous != null) {
+        return State.CONTINUE;
+      }
+      if (status != HTTP_OK) {
+        logger.warn("Unable to compute the hash of resource pack {}: server responded with {}",
+            url, status);
+        failed = true;
+        return State.ABORT;
+      }
+      return State.CONTINUE;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpHeaders headers) {
+      etag = headers.get(HttpHeaderNames.ETAG);
+      lastModified = headers.get(HttpHeaderNames.LAST_MODIFIED);
+      String length = headers.get(HttpHeaderNames.CONTENT_LENGTH);
+      if (length != null) {
+        try {
+          if (Long.parseLong(length) > MAX_PACK_SIZE) {
+            return tooLarge();
+          }
+        } catch (NumberFormatException ignored) {
+          // Let the body tell us how large it really is.
+        }
+      }
+      return State.CONTINUE;
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+      received += bodyPart.length();
+      if (received > MAX_PACK_SIZE) {
+        return tooLarge();
+      }
+      digest.update(bodyPart.getBodyByteBuffer());
+      return State.CONTINUE;
+    }
+
+    private State tooLarge() {
+      logger.warn("Unable to compute the hash of resource pack {}: it is larger than {} bytes",
+          url, MAX_PACK_SIZE);
+      failed = true;
+      return State.ABORT;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+      failed = true;
+    }
+
+    @Override
+    public @Nullable ResolvedHash onCompleted() {
+      if (failed) {
+        return null;
+      }
+      long now = ticker.read();
+      if (status == HTTP_NOT_MODIFIED && previous != null) {
+        return new ResolvedHash(previous.hash,
+            etag != null ? etag : previous.etag,
+            lastModified != null ? lastModified : previous.lastModified,
+            now);
+      }
+      return new ResolvedHash(digest.digest(), etag, lastModified, now);
+    }
+  }
+
+  private static final class ResolvedHash {
+
+    private final byte[] hash;
+    private final @Nullable String etag;
+    private final @Nullable String lastModified;
+    private final long validatedAt;
+
+    private ResolvedHash(byte[] hash, @Nullable String etag, @Nullable String lastModified,
+        long validatedAt) {
+      this.hash = hash;
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.validatedAt = validatedAt;
+    }
+  }
+}
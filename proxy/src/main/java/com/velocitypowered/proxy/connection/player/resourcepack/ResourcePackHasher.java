@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBufUtil;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Computes the SHA-1 hashes of resource packs stored on disk. Files are mapped into memory in large
+ * chunks which are fed to the digest directly, so a pack is never copied onto the heap. Hashing
+ * runs on a small pool of background threads, and the hashes are remembered by path, size and
+ * modification time in an index file, so large packs are not hashed again after a restart.
+ */
+public final class ResourcePackHasher {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackHasher.class);
+  private static final Pattern VALID_HASH = Pattern.compile("[0-9a-f]{40}");
+  private static final int THREADS = Integer.getInteger("velocity.resource-pack-hash-threads", 2);
+  private static final long CHUNK_SIZE =
+      Long.getLong("velocity.resource-pack-hash-chunk-size", 64L * 1024 * 1024);
+
+  private final ExecutorService executor;
+  private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<Path, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+  private volatile @Nullable Path indexFile;
+  private volatile boolean dirty;
+
+  /**
+   * Creates a new hasher. Hashes are only kept in memory until an index file is {@link #load(Path)
+   * loaded}.
+   */
+  public ResourcePackHasher() {
+    this.executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder()
+        .setNameFormat("Velocity Resource Pack Hasher #%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  /**
+   * Loads the hashes stored in the specified index file, which is also where hashes computed from
+   * now on are saved to. Entries for files that have changed since are ignored.
+   *
+   * @param indexFile the index file
+   * @throws IOException if the index file exists but can't be read
+   */
+  public void load(Path indexFile) throws IOException {
+    this.indexFile = indexFile;
+    if (!Files.isRegularFile(indexFile)) {
+      return;
+    }
+
+    int loaded = 0;
+    try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        // <hash> <size> <last modified> <path>, with the path last as it may contain spaces.
+        String[] parts = line.split(" ", 4);
+        if (parts.length != 4 || !VALID_HASH.matcher(parts[0]).matches()) {
+          continue;
+        }
+        try {
+          Entry entry = new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+              ByteBufUtil.decodeHexDump(parts[0]));
+          entries.putIfAbsent(Path.of(parts[3]), entry);
+          loaded++;
+        } catch (RuntimeException e) {
+          logger.debug("Ignoring malformed line in {}: {}", indexFile, line);
+        }
+      }
+    }
+    logger.debug("Loaded {} resource pack hash(es) from {}", loaded, indexFile);
+  }
+
+  /**
+   * Computes the SHA-1 hash of the specified file, or returns the hash computed earlier if the
+   * size and modification time of the file have not changed since. Requests for a file that is
+   * already being hashed share the same result.
+   *
+   * @param file the file to hash
+   * @return a future with the hash of the file
+   */
+  public CompletableFuture<byte[]> hash(Path file) {
+    Preconditions.checkNotNull(file, "file");
+    Path path = file.toAbsolutePath().normalize();
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    long size = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    Entry known = entries.get(path);
+    if (known != null && known.size == size && known.lastModified == lastModified) {
+      return CompletableFuture.completedFuture(known.hash.clone());
+    }
+
+    CompletableFuture<byte[]> created = new CompletableFuture<>();
+    CompletableFuture<byte[]> existing = inFlight.putIfAbsent(path, created);
+    if (existing != null) {
+      return existing.thenApply(byte[]::clone);
+    }
+    executor.execute(() -> {
+      try {
+        byte[] hash = digest(path);
+        BasicFileAttributes after = Files.readAttributes(path, BasicFileAttributes.class);
+        if (after.size() == size && after.lastModifiedTime().toMillis() == lastModified) {
+          entries.put(path, new Entry(size, lastModified, hash));
+          dirty = true;
+        }
+        created.complete(hash.clone());
+      } catch (Exception e) {
+        created.completeExceptionally(e);
+      } finally {
+        inFlight.remove(path, created);
+        if (inFlight.isEmpty()) {
+          saveQuietly();
+        }
+      }
+    });
+    return created.thenApply(byte[]::clone);
+  }
+
+  /**
+   * Checks whether the specified file has the expected SHA-1 hash.
+   *
+   * @param file the file to check
+   * @param expected the expected hash
+   * @return a future that completes with whether the file has the expected hash
+   */
+  public CompletableFuture<Boolean> verify(Path file, byte[] expected) {
+    Preconditions.checkNotNull(expected, "expected");
+    return hash(file).thenApply(hash -> Arrays.equals(hash, expected));
+  }
+
+  /**
+   * Writes the known hashes to the index file, if there is one and new hashes were computed since
+   * it was last written. Hashes of files that no longer exist are dropped.
+   *
+   * @throws IOException if the index file can't be written
+   */
+  public synchronized void save() throws IOException {
+    Path indexFile = this.indexFile;
+    if (indexFile == null || !dirty) {
+      return;
+    }
+    dirty = false;
+
+    Path parent = indexFile.toAbsolutePath().getParent();
+    if (parent != null && !Files.isDirectory(parent)) {
+      Files.createDirectories(parent);
+    }
+    Path temporary = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+        for (Map.Entry<Path, Entry> known : entries.entrySet()) {
+          Path path = known.getKey();
+          if (!Files.exists(path)) {
+            entries.remove(path, known.getValue());
+            continue;
+          }
+          Entry entry = known.getValue();
+          writer.write(ByteBufUtil.hexDump(entry.hash) + ' ' + entry.size + ' '
+              + entry.lastModified + ' ' + path);
+          writer.newLine();
+        }
+      }
+      Files.move(temporary, indexFile, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      dirty = true;
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+  }
+
+  /**
+   * Stops accepting files to hash and saves the index. Files that are already being hashed are
+   * finished in the background.
+   */
+  public void shutdown() {
+    executor.shutdown();
+    saveQuietly();
+  }
+
+  private void saveQuietly() {
+    try {
+      save();
+    } catch (IOException e) {
+      logger.warn("Unable to save resource pack hashes to {}", indexFile, e);
+    }
+  }
+
+  /**
+   * Computes the SHA-1 hash of a file, reading it through memory-mapped chunks.
+   *
+   * @param path the file to hash
+   * @return the hash of the file
+   * @throws IOException if the file can't be read
+   */
+  static byte[] digest(Path path) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size; position += CHUNK_SIZE) {
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+            Math.min(CHUNK_SIZE, size - position));
+        digest.update(chunk);
+      }
+    }
+    return digest.digest();
+  }
+
+  private static final class Entry {
+
+    private final long size;
+    private final long lastModified;
+    private final byte[] hash;
+
+    private Entry(long size, long lastModified, byte[] hash) {
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+  }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpChunkedInput;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Serves the packs in a {@link ResourcePackDirectory} over HTTP. Pack contents are sent with a
+ * {@link DefaultFileRegion}, so the transport can hand them to the kernel (using
+ * {@code sendfile} where available) without copying them through the heap. Single byte ranges
+ * and conditional requests against the pack's SHA-1 entity tag are supported.
+ */
+@ChannelHandler.Sharable
+public class ResourcePackHttpHandler extends SimpleChannelInboundHandler<HttpRequest> {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackHttpHandler.class);
+  private static final String CONTENT_TYPE = "application/zip";
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  private final ResourcePackDirectory directory;
+  private final @Nullable ResourcePackMerger merger;
+
+  public ResourcePackHttpHandler(ResourcePackDirectory directory) {
+    this(directory, null);
+  }
+
+  public ResourcePackHttpHandler(ResourcePackDirectory directory,
+      @Nullable ResourcePackMerger merger) {
+    this.directory = directory;
+    this.merger = merger;
+  }
+
+  @Override
+  protected void channelRead0(ChannelHandlerContext ctx, HttpRequest request) {
+    boolean keepAlive = HttpUtil.isKeepAlive(request);
+    if (!request.decoderResult().isSuccess()) {
+      sendStatus(ctx, HttpResponseStatus.BAD_REQUEST, false);
+      return;
+    }
+
+    HttpMethod method = request.method();
+    if (!method.equals(HttpMethod.GET) && !method.equals(HttpMethod.HEAD)) {
+      FullHttpResponse response = emptyResponse(HttpResponseStatus.METHOD_NOT_ALLOWED);
+      response.headers().set(HttpHeaderNames.ALLOW, "GET, HEAD");
+      send(ctx, response, keepAlive);
+      return;
+    }
+
+    Optional<LocalResourcePack> found = packFor(new QueryStringDecoder(request.uri()).path());
+    if (found.isEmpty()) {
+      sendStatus(ctx, HttpResponseStatus.NOT_FOUND, keepAlive);
+      return;
+    }
+    LocalResourcePack pack = found.get();
+    HttpHeaders requestHeaders = request.headers();
+
+    if (matchesEtag(requestHeaders.get(HttpHeaderNames.IF_NONE_MATCH), pack.etag())) {
+      FullHttpResponse response = emptyResponse(HttpResponseStatus.NOT_MODIFIED);
+      response.headers().set(HttpHeaderNames.ETAG, pack.etag());
+      send(ctx, response, keepAlive);
+      return;
+    }
+
+    long start = 0;
+    long end = pack.size() - 1;
+    HttpResponseStatus status = HttpResponseStatus.OK;
+    String range = requestHeaders.get(HttpHeaderNames.RANGE);
+    String ifRange = requestHeaders.get(HttpHeaderNames.IF_RANGE);
+    if (range != null && (ifRange == null || ifRange.equals(pack.etag()))) {
+      long[] parsed = parseRange(range, pack.size());
+      if (parsed == null) {
+        FullHttpResponse response =
+            emptyResponse(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        response.headers().set(HttpHeaderNames.CONTENT_RANGE, "bytes */" + pack.size());
+        send(ctx, response, keepAlive);
+        return;
+      }
+      if (parsed[0] != 0 || parsed[1] != pack.size() - 1) {
+        start = parsed[0];
+        end = parsed[1];
+        status = HttpResponseStatus.PARTIAL_CONTENT;
+      }
+    }
+    long length = end - start + 1;
+
+    HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, status);
+    HttpHeaders headers = response.headers();
+    headers.set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE);
+    headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
+    headers.set(HttpHeaderNames.ETAG, pack.etag());
+    headers.set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+    headers.set(HttpHeaderNames.CACHE_CONTROL, HttpHeaderValues.NO_CACHE);
+    if (status == HttpResponseStatus.PARTIAL_CONTENT) {
+      headers.set(HttpHeaderNames.CONTENT_RANGE,
+          "bytes " + start + '-' + end + '/' + pack.size());
+    }
+    HttpUtil.setKeepAlive(response, keepAlive);
+
+    if (method.equals(HttpMethod.HEAD) || length == 0) {
+      ctx.write(response);
+      finish(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT), keepAlive);
+      return;
+    }
+
+    FileChannel file;
+    try {
+      file = FileChannel.open(pack.path(), StandardOpenOption.READ);
+    } catch (IOException e) {
+      logger.error("Unable to open resource pack {}", pack.path(), e);
+      sendStatus(ctx, HttpResponseStatus.INTERNAL_SERVER_ERROR, false);
+      return;
+    }
+
+    ctx.write(response);
+    if (supportsFileRegion(ctx)) {
+      ctx.write(new DefaultFileRegion(file, start, length));
+      finish(ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT), keepAlive);
+    } else {
+      try {
+        finish(ctx.writeAndFlush(
+            new HttpChunkedInput(new ChunkedNioFile(file, start, length, CHUNK_SIZE))), keepAlive);
+      } catch (IOException e) {
+        logger.error("Unable to read resource pack {}", pack.path(), e);
+        ctx.close();
+      }
+    }
+  }
+
+  private Optional<LocalResourcePack> packFor(String path) {
+    if (!path.startsWith("/") || !path.endsWith(".zip")) {
+      return Optional.empty();
+    }
+    if (path.startsWith(ResourcePackHttpServer.MERGED_PATH)) {
+      if (merger == null) {
+        return Optional.empty();
+      }
+      return merger.pack(path.substring(ResourcePackHttpServer.MERGED_PATH.length(),
+          path.length() - ".zip".length()));
+    }
+    if (path.startsWith(ResourcePackHttpServer.OPTIMIZED_PATH)) {
+      String name = path.substring(ResourcePackHttpServer.OPTIMIZED_PATH.length(),
+          path.length() - ".zip".length());
+      int separator = name.indexOf('/');
+      if (separator < 0) {
+        return Optional.empty();
+      }
+      return directory.optimized(name.substring(0, separator), name.substring(separator + 1));
+    }
+    return directory.source(path.substring(1, path.length() - ".zip".length()));
+  }
+
+  private static boolean supportsFileRegion(ChannelHandlerContext ctx) {
+    // The io_uring transport can't write file regions yet, so stream the file in chunks instead.
+    return !(ctx.channel() instanceof IOUringSocketChannel);
+  }
+
+  private static boolean matchesEtag(@Nullable String header, String etag) {
+    if (header == null) {
+      return false;
+    }
+    for (String candidate : header.split(",")) {
+      candidate = candidate.trim();
+      if (candidate.startsWith("W/")) {
+        candidate = candidate.substring(2);
+      }
+      if (candidate.equals("*") || candidate.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses a {@code Range} header for a resource of the given size. Only a single byte range is
+   * supported; anything else is ignored and the whole resource is served.
+   *
+   * @param header the value of the header
+   * @param size the size of the resource
+   * @return the first and last byte to send, or {@code null} if the range can't be satisfied
+   */
+  @VisibleForTesting
+  static long @Nullable [] parseRange(String header, long size) {
+    long[] whole = {0, size - 1};
+    if (!header.startsWith("bytes=") || header.indexOf(',') != -1) {
+      return whole;
+    }
+    String spec = header.substring("bytes=".length()).trim();
+    int dash = spec.indexOf('-');
+    if (dash == -1) {
+      return whole;
+    }
+
+    long start;
+    long end;
+    try {
+      if (dash == 0) {
+        // A suffix range: the last N bytes.
+        long suffix = Long.parseLong(spec.substring(1));
+        if (suffix <= 0) {
+          return null;
+        }
+        start = Math.max(0, size - suffix);
+        end = size - 1;
+      } else {
+        start = Long.parseLong(spec.substring(0, dash));
+        end = dash == spec.length() - 1 ? size - 1 : Long.parseLong(spec.substring(dash + 1));
+      }
+    } catch (NumberFormatException e) {
+      return whole;
+    }
+
+    if (start < 0 || end < start) {
+      return whole;
+    }
+    if (start >= size) {
+      return null;
+    }
+    return new long[] {start, Math.min(end, size - 1)};
+  }
+
+  private static FullHttpResponse emptyResponse(HttpResponseStatus status) {
+    FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status);
+    HttpUtil.setContentLength(response, 0);
+    return response;
+  }
+
+  private static void sendStatus(ChannelHandlerContext ctx, HttpResponseStatus status,
+      boolean keepAlive) {
+    send(ctx, emptyResponse(status), keepAlive);
+  }
+
+  private static void send(ChannelHandlerContext ctx, FullHttpResponse response,
+      boolean keepAlive) {
+    HttpUtil.setKeepAlive(response, keepAlive);
+    finish(ctx.writeAndFlush(response), keepAlive);
+  }
+
+  private static void finish(ChannelFuture future, boolean keepAlive) {
+    if (!keepAlive) {
+      future.addListener(ChannelFutureListener.CLOSE);
+    }
+  }
+
+  @Override
+  public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+    if (evt instanceof IdleStateEvent) {
+      ctx.close();
+      return;
+    }
+    super.userEventTriggered(ctx, evt);
+  }
+
+  @Override
+  public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+    if (ctx.channel().isActive()) {
+      logger.debug("Error while serving resource pack to {}", ctx.channel().remoteAddress(),
+          cause);
+      ctx.close();
+    }
+  }
+}
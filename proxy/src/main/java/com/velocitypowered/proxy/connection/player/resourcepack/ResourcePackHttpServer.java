@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.google.common.base.Preconditions;
+import com.velocitypowered.proxy.network.ConnectionManager;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An HTTP server embedded in the proxy that serves the packs of a {@link ResourcePackDirectory},
+ * so players can download them straight from the proxy instead of an external web server. Packs
+ * created by a {@link ResourcePackMerger} are served as well.
+ */
+public final class ResourcePackHttpServer {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackHttpServer.class);
+  private static final int IDLE_TIMEOUT_SECONDS = 60;
+  static final String MERGED_PATH = "/merged/";
+  static final String OPTIMIZED_PATH = "/optimized/";
+
+  private final ResourcePackDirectory directory;
+  private final ResourcePackMerger merger;
+  private final InetSocketAddress bind;
+  private final String baseUrl;
+  private @Nullable Channel channel;
+
+  /**
+   * Creates a new resource pack server.
+   *
+   * @param directory the directory to serve packs from
+   * @param merger the merger whose packs to serve
+   * @param bind the address to listen on
+   * @param publicUrl the base URL players use to reach the server, or an empty string to derive it
+   *                  from the bind address
+   */
+  public ResourcePackHttpServer(ResourcePackDirectory directory, ResourcePackMerger merger,
+      InetSocketAddress bind, String publicUrl) {
+    this.directory = Preconditions.checkNotNull(directory, "directory");
+    this.merger = Preconditions.checkNotNull(merger, "merger");
+    this.bind = Preconditions.checkNotNull(bind, "bind");
+
+    String base = publicUrl;
+    if (base.isEmpty()) {
+      if (bind.getAddress() != null && bind.getAddress().isAnyLocalAddress()) {
+        logger.warn("The resource pack server is bound to a wildcard address, so players can't be "
+            + "told where to download packs from. Set resource-pack-server-url in velocity.toml.");
+      }
+      base = "http://" + bind.getHostString() + ':' + bind.getPort();
+    }
+    while (base.endsWith("/")) {
+      base = base.substring(0, base.length() - 1);
+    }
+    this.baseUrl = base;
+  }
+
+  /**
+   * Starts listening for requests.
+   *
+   * @param cm the connection manager to bind with
+   */
+  public void start(ConnectionManager cm) {
+    ResourcePackHttpHandler handler = new ResourcePackHttpHandler(directory, merger);
+    cm.httpBind(bind, new ChannelInitializer<>() {
+      @Override
+      protected void initChannel(Channel ch) {
+        ch.pipeline()
+            .addLast(new IdleStateHandler(0, 0, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            .addLast(new HttpServerCodec())
+            .addLast(new ChunkedWriteHandler())
+            .addLast(handler);
+      }
+    }).addListener((ChannelFutureListener) future -> {
+      if (future.isSuccess()) {
+        this.channel = future.channel();
+        logger.info("Serving resource packs from {} on {}", directory.directory(),
+            future.channel().localAddress());
+      } else {
+        logger.error("Can't bind the resource pack server to {}", bind, future.cause());
+      }
+    });
+  }
+
+  /**
+   * Stops listening for requests and merging packs. Downloads already in progress are not
+   * interrupted.
+   */
+  public void close() {
+    merger.shutdown();
+    directory.shutdown();
+    Channel channel = this.channel;
+    if (channel != null) {
+      logger.info("Closing resource pack server on {}", channel.localAddress());
+      channel.close().syncUninterruptibly();
+      this.channel = null;
+    }
+  }
+
+  public ResourcePackDirectory directory() {
+    return directory;
+  }
+
+  public ResourcePackMerger merger() {
+    return merger;
+  }
+
+  /**
+   * Returns the URL players can download the specified pack from.
+   *
+   * @param pack the pack
+   * @return the download URL
+   */
+  public String url(LocalResourcePack pack) {
+    if (directory.isOptimized(pack)) {
+      // Clients cache packs by URL, so a copy with a different hash needs a URL of its own.
+      return baseUrl + OPTIMIZED_PATH + pack.id() + '/' + ByteBufUtil.hexDump(pack.hash())
+          + ".zip";
+    }
+    return baseUrl + '/' + pack.id() + ".zip";
+  }
+
+  /**
+   * Returns the URL players can download the specified merged pack from.
+   *
+   * @param pack the merged pack
+   * @return the download URL
+   */
+  public String mergedUrl(LocalResourcePack pack) {
+    return baseUrl + MERGED_PATH + pack.id() + ".zip";
+  }
+}
@@ -0,0 +1,493 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.handler.codec.http.HttpHeaders;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Merges several resource packs into one, for clients that can only apply a single pack at a time.
+ * Merged packs are stored in a content-addressed cache directory, keyed by the hashes of their
+ * inputs in order, so each combination is only merged once. The cache is kept below a maximum size
+ * by evicting the least recently used packs.
+ */
+public final class ResourcePackMerger {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackMerger.class);
+  private static final Pattern VALID_KEY = Pattern.compile("[0-9a-f]{40}");
+  private static final String EXTENSION = ".zip";
+  private static final String HASH_EXTENSION = ".sha1";
+  private static final String TEMPORARY_EXTENSION = ".tmp";
+  private static final long MAX_PACK_SIZE =
+      Long.getLong("velocity.resource-pack-hash-max-size", 250L * 1024 * 1024);
+  private static final int THREADS = Integer.getInteger("velocity.resource-pack-merge-threads", 2);
+  private static final int HTTP_OK = 200;
+
+  private final Path cacheDirectory;
+  private final long maxCacheSize;
+  private final ResourcePackDirectory directory;
+  private final ResourcePackHashResolver hashResolver;
+  private final AsyncHttpClient httpClient;
+  private final ExecutorService executor;
+  private final Map<String, CompletableFuture<LocalResourcePack>> inFlight =
+      new ConcurrentHashMap<>();
+  // Guarded by this. Iterates from the least to the most recently used pack.
+  private final LinkedHashMap<String, LocalResourcePack> cached =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private long cachedSize;
+
+  /**
+   * Creates a new merger.
+   *
+   * @param cacheDirectory the directory to store merged packs in
+   * @param maxCacheSize the maximum combined size of the merged packs to keep, in bytes
+   * @param directory the local packs, which are read in place instead of being downloaded
+   * @param hashResolver the resolver used for input packs that don't have a hash
+   * @param httpClient the HTTP client used to download input packs
+   */
+  public ResourcePackMerger(Path cacheDirectory, long maxCacheSize,
+      ResourcePackDirectory directory, ResourcePackHashResolver hashResolver,
+      AsyncHttpClient httpClient) {
+    this.cacheDirectory = Preconditions.checkNotNull(cacheDirectory, "cacheDirectory");
+    this.maxCacheSize = maxCacheSize;
+    this.directory = Preconditions.checkNotNull(directory, "directory");
+    this.hashResolver = Preconditions.checkNotNull(hashResolver, "hashResolver");
+    this.httpClient = Preconditions.checkNotNull(httpClient, "httpClient");
+    this.executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder()
+        .setNameFormat("Velocity Resource Pack Merger #%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  /**
+   * Loads the packs merged by earlier runs of the proxy, discarding incomplete ones.
+   *
+   * @throws IOException if the cache directory can't be listed
+   */
+  public void load() throws IOException {
+    if (!Files.isDirectory(cacheDirectory)) {
+      Files.createDirectories(cacheDirectory);
+    }
+
+    List<LocalResourcePack> found = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory)) {
+      for (Path path : stream) {
+        String fileName = path.getFileName().toString();
+        if (!fileName.endsWith(EXTENSION)) {
+          if (fileName.endsWith(TEMPORARY_EXTENSION)) {
+            // Left behind by a merge that was interrupted.
+            Files.deleteIfExists(path);
+          }
+          continue;
+        }
+        String key = fileName.substring(0, fileName.length() - EXTENSION.length());
+        LocalResourcePack pack = VALID_KEY.matcher(key).matches() ? readCached(key) : null;
+        if (pack == null) {
+          deleteCached(key, path);
+        } else {
+          found.add(pack);
+        }
+      }
+    }
+
+    found.sort(Comparator.comparingLong(LocalResourcePack::lastModified));
+    for (LocalResourcePack pack : found) {
+      add(pack);
+    }
+    logger.info("Loaded {} merged resource pack(s) from {}", found.size(), cacheDirectory);
+  }
+
+  /**
+   * Merges the specified packs. Files in packs later in the list replace files with the same name
+   * in packs earlier in the list, so the list order decides which pack takes precedence.
+   *
+   * @param packs the packs to merge, in ascending order of precedence
+   * @return a future with the merged pack
+   */
+  public CompletableFuture<LocalResourcePack> merge(List<ResourcePackInfo> packs) {
+    Preconditions.checkArgument(!packs.isEmpty(), "No resource packs to merge");
+    List<ResourcePackInfo> inputs = List.copyOf(packs);
+    return resolveHashes(inputs).thenCompose(hashes -> {
+      String key = cacheKey(hashes);
+      Optional<LocalResourcePack> hit = pack(key);
+      if (hit.isPresent()) {
+        // This may run on the caller's thread, which can be an event loop, so leave the disk to
+        // the merger threads. The lookup already moved the pack up in memory.
+        executor.execute(() -> touch(hit.get()));
+        return CompletableFuture.completedFuture(hit.get());
+      }
+
+      CompletableFuture<LocalResourcePack> created = new CompletableFuture<>();
+      CompletableFuture<LocalResourcePack> existing = inFlight.putIfAbsent(key, created);
+      if (existing != null) {
+        return existing;
+      }
+      executor.execute(() -> {
+        try {
+          created.complete(build(key, inputs, hashes));
+        } catch (Exception e) {
+          created.completeExceptionally(e);
+        } finally {
+          inFlight.remove(key, created);
+        }
+      });
+      return created;
+    });
+  }
+
+  /**
+   * Looks up a merged pack by its cache key.
+   *
+   * @param key the cache key of the pack
+   * @return the pack, if it is cached
+   */
+  public synchronized Optional<LocalResourcePack> pack(String key) {
+    return Optional.ofNullable(cached.get(key));
+  }
+
+  /**
+   * Stops merging packs. Merges in progress are abandoned.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private CompletableFuture<List<byte[]>> resolveHashes(List<ResourcePackInfo> inputs) {
+    List<CompletableFuture<byte[]>> hashes = new ArrayList<>(inputs.size());
+    for (ResourcePackInfo input : inputs) {
+      byte[] hash = input.hash();
+      if (hash != null) {
+        hashes.add(CompletableFuture.completedFuture(hash));
+      } else {
+        hashes.add(hashResolver.resolve(input.url()).thenApply(resolved -> {
+          if (resolved == null) {
+            throw new IllegalArgumentException("Unable to determine the hash of resource pack "
+                + input.url());
+          }
+          return resolved;
+        }));
+      }
+    }
+    return CompletableFuture.allOf(hashes.toArray(new CompletableFuture[0]))
+        .thenApply(ignored -> hashes.stream().map(CompletableFuture::join)
+            .collect(Collectors.toList()));
+  }
+
+  private LocalResourcePack build(String key, List<ResourcePackInfo> inputs, List<byte[]> hashes)
+      throws IOException, InterruptedException {
+    List<Path> temporary = new ArrayList<>();
+    try {
+      // Highest precedence first, so the first copy of a file that is written is the one to keep.
+      List<Path> sources = new ArrayList<>(inputs.size());
+      for (int i = inputs.size() - 1; i >= 0; i--) {
+        sources.add(source(inputs.get(i), hashes.get(i), temporary));
+      }
+
+      Path merged = Files.createTempFile(cacheDirectory, key, TEMPORARY_EXTENSION);
+      temporary.add(merged);
+      MessageDigest digest = sha1();
+      try (OutputStream out = new DigestOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(merged)), digest)) {
+        mergeZips(sources, out);
+      }
+      byte[] hash = digest.digest();
+
+      // The hash goes first, so a pack that is found without one is known to be incomplete.
+      Files.writeString(cacheDirectory.resolve(key + HASH_EXTENSION), ByteBufUtil.hexDump(hash),
+          StandardCharsets.US_ASCII);
+      Path target = cacheDirectory.resolve(key + EXTENSION);
+      Files.move(merged, target, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      temporary.remove(merged);
+
+      LocalResourcePack pack = new LocalResourcePack(key, target, Files.size(target),
+          Files.getLastModifiedTime(target).toMillis(), hash);
+      add(pack);
+      logger.info("Merged {} resource packs into {} ({} bytes)", inputs.size(), target,
+          pack.size());
+      return pack;
+    } finally {
+      for (Path path : temporary) {
+        try {
+          Files.deleteIfExists(path);
+        } catch (IOException e) {
+          logger.warn("Unable to delete temporary file {}", path, e);
+        }
+      }
+    }
+  }
+
+  private Path source(ResourcePackInfo input, byte[] hash, List<Path> temporary)
+      throws IOException, InterruptedException {
+    Optional<LocalResourcePack> local = directory.packByHash(hash);
+    if (local.isPresent()) {
+      return local.get().path();
+    }
+
+    Path download = Files.createTempFile(cacheDirectory, "download", TEMPORARY_EXTENSION);
+    temporary.add(download);
+    DownloadHandler handler = new DownloadHandler(input.url());
+    ListenableFuture<Void> response = httpClient.prepareGet(input.url()).execute(handler);
+    byte[] downloaded;
+    try {
+      downloaded = handler.writeTo(download);
+    } catch (IOException | InterruptedException e) {
+      response.cancel(true);
+      throw e;
+    }
+    if (!Arrays.equals(downloaded, hash)) {
+      throw new IOException("Resource pack " + input.url() + " does not match its hash "
+          + ByteBufUtil.hexDump(hash));
+    }
+    return download;
+  }
+
+  /**
+   * Copies the entries of the specified zip files into one zip file. When several files contain an
+   * entry with the same name, only the one from the file earliest in the list is kept.
+   *
+   * @param sources the zip files to merge, highest precedence first
+   * @param out the stream to write the merged zip file to, which is closed afterwards
+   * @throws IOException if a file can't be read or the merged file can't be written
+   */
+  static void mergeZips(List<Path> sources, OutputStream out) throws IOException {
+    Set<String> written = new HashSet<>();
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      for (Path source : sources) {
+        try (ZipInputStream in = new ZipInputStream(
+            new BufferedInputStream(Files.newInputStream(source)))) {
+          ZipEntry entry;
+          while ((entry = in.getNextEntry()) != null) {
+            if (!written.add(entry.getName())) {
+              continue;
+            }
+            ZipEntry copy = new ZipEntry(entry.getName());
+            copy.setTime(entry.getTime());
+            zip.putNextEntry(copy);
+            in.transferTo(zip);
+            zip.closeEntry();
+          }
+        }
+      }
+    }
+  }
+
+  private synchronized void add(LocalResourcePack pack) {
+    LocalResourcePack replaced = cached.put(pack.id(), pack);
+    if (replaced != null) {
+      cachedSize -= replaced.size();
+    }
+    cachedSize += pack.size();
+
+    Iterator<LocalResourcePack> it = cached.values().iterator();
+    while (cachedSize > maxCacheSize && cached.size() > 1) {
+      LocalResourcePack eldest = it.next();
+      it.remove();
+      cachedSize -= eldest.size();
+      deleteCached(eldest.id(), eldest.path());
+    }
+  }
+
+  private void touch(LocalResourcePack pack) {
+    // The modification time orders the packs by use when they are loaded again after a restart.
+    try {
+      Files.setLastModifiedTime(pack.path(), FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      logger.debug("Unable to update the modification time of {}", pack.path(), e);
+    }
+  }
+
+  private @Nullable LocalResourcePack readCached(String key) throws IOException {
+    Path path = cacheDirectory.resolve(key + EXTENSION);
+    Path hashPath = cacheDirectory.resolve(key + HASH_EXTENSION);
+    if (!Files.isRegularFile(hashPath)) {
+      return null;
+    }
+    String hex = Files.readString(hashPath, StandardCharsets.US_ASCII).trim();
+    if (!VALID_KEY.matcher(hex).matches()) {
+      return null;
+    }
+    return new LocalResourcePack(key, path, Files.size(path),
+        Files.getLastModifiedTime(path).toMillis(), ByteBufUtil.decodeHexDump(hex));
+  }
+
+  private void deleteCached(String key, Path path) {
+    try {
+      Files.deleteIfExists(path);
+      Files.deleteIfExists(cacheDirectory.resolve(key + HASH_EXTENSION));
+    } catch (IOException e) {
+      logger.warn("Unable to delete merged resource pack {}", path, e);
+    }
+  }
+
+  private static String cacheKey(List<byte[]> hashes) {
+    MessageDigest digest = sha1();
+    for (byte[] hash : hashes) {
+      digest.update(hash);
+    }
+    return ByteBufUtil.hexDump(digest.digest());
+  }
+
+  private static MessageDigest sha1() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Downloads a pack. Body parts arrive on the HTTP client's event loop, which is shared with
+   * player connections, so they are only queued there; the file is written and hashed by the
+   * merger thread waiting for the download in {@link #writeTo(Path)}.
+   */
+  private static final class DownloadHandler implements AsyncHandler<Void> {
+
+    private static final byte[] END = new byte[0];
+
+    private final String url;
+    private final BlockingQueue<byte[]> parts = new LinkedBlockingQueue<>();
+    private long received;
+    private volatile @Nullable IOException failure;
+
+    private DownloadHandler(String url) {
+      this.url = url;
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) {
+      if (responseStatus.getStatusCode() != HTTP_OK) {
+        failure = new IOException("Unable to download resource pack " + url
+            + ": server responded with " + responseStatus.getStatusCode());
+        parts.add(END);
+        return State.ABORT;
+      }
+      return State.CONTINUE;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpHeaders headers) {
+      return State.CONTINUE;
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+      byte[] part = bodyPart.getBodyPartBytes();
+      received += part.length;
+      if (received > MAX_PACK_SIZE) {
+        failure = new IOException("Resource pack " + url + " is larger than " + MAX_PACK_SIZE
+            + " bytes");
+        parts.add(END);
+        return State.ABORT;
+      }
+      if (part.length > 0) {
+        parts.add(part);
+      }
+      return State.CONTINUE;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+      if (failure == null) {
+        failure = new IOException("Unable to download resource pack " + url, t);
+      }
+      parts.add(END);
+    }
+
+    @Override
+    public Void onCompleted() {
+      parts.add(END);
+      return null;
+    }
+
+    /**
+     * Writes the body to the specified file as it arrives, until the download ends.
+     *
+     * @param path the file to write to
+     * @return the SHA-1 hash of the body
+     * @throws IOException if the download failed or the file can't be written
+     * @throws InterruptedException if interrupted while waiting for the body
+     */
+    byte[] writeTo(Path path) throws IOException, InterruptedException {
+      MessageDigest digest = sha1();
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+        byte[] part;
+        while ((part = parts.take()) != END) {
+          digest.update(part);
+          ByteBuffer buffer = ByteBuffer.wrap(part);
+          while (buffer.hasRemaining()) {
+            channel.write(buffer);
+          }
+        }
+      }
+      IOException failure = this.failure;
+      if (failure != null) {
+        throw failure;
+      }
+      return digest.digest();
+    }
+  }
+}
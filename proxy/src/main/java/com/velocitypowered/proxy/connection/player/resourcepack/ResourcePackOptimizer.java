@@ -0,0 +1,397 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.netty.buffer.ByteBufUtil;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Produces optimized copies of local resource packs: every entry is recompressed at the highest
+ * deflate level (or stored, if that is smaller), files clients never read are dropped, JSON and
+ * legacy {@code .lang} files are minified and only one entry is kept for each file name.
+ *
+ * <p>The output only depends on the contents of the input, so it is cached under the hash of the
+ * input pack and an unchanged pack always gets the same optimized hash.
+ */
+public final class ResourcePackOptimizer {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackOptimizer.class);
+  private static final Pattern VALID_KEY = Pattern.compile("[0-9a-f]{40}");
+  private static final String EXTENSION = ".zip";
+  private static final String HASH_EXTENSION = ".sha1";
+  private static final String TEMPORARY_EXTENSION = ".tmp";
+  private static final int THREADS =
+      Integer.getInteger("velocity.resource-pack-optimizer-threads", 1);
+  // Zip timestamps are stored in local time, so a fixed local time keeps the output identical
+  // whatever the time zone of the machine is.
+  private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(2000, 1, 1, 0, 0);
+  private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+  private static final Set<String> IGNORED_FILE_NAMES = Set.of(".ds_store", "thumbs.db",
+      "desktop.ini");
+
+  private final Path cacheDirectory;
+  private final ExecutorService executor;
+  private final Map<String, CompletableFuture<LocalResourcePack>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Creates a new optimizer.
+   *
+   * @param cacheDirectory the directory to store optimized packs in
+   */
+  public ResourcePackOptimizer(Path cacheDirectory) {
+    this.cacheDirectory = Preconditions.checkNotNull(cacheDirectory, "cacheDirectory");
+    this.executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder()
+        .setNameFormat("Velocity Resource Pack Optimizer #%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  /**
+   * Optimizes the specified pack, or returns the optimized copy made earlier if the pack has not
+   * changed since. The optimized pack has the same ID as the original one.
+   *
+   * @param source the pack to optimize
+   * @return a future with the optimized pack
+   */
+  public CompletableFuture<LocalResourcePack> optimize(LocalResourcePack source) {
+    String key = ByteBufUtil.hexDump(source.hash());
+    try {
+      LocalResourcePack cached = readCached(source.id(), key);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    CompletableFuture<LocalResourcePack> created = new CompletableFuture<>();
+    CompletableFuture<LocalResourcePack> existing = inFlight.putIfAbsent(key, created);
+    if (existing != null) {
+      return existing;
+    }
+    executor.execute(() -> {
+      try {
+        created.complete(build(source, key));
+      } catch (Exception e) {
+        created.completeExceptionally(e);
+      } finally {
+        inFlight.remove(key, created);
+      }
+    });
+    return created;
+  }
+
+  /**
+   * Deletes the optimized copies of packs other than the specified ones.
+   *
+   * @param sources the packs whose optimized copies should be kept
+   */
+  public void retain(Collection<LocalResourcePack> sources) {
+    if (!Files.isDirectory(cacheDirectory)) {
+      return;
+    }
+    Set<String> keep = new HashSet<>();
+    for (LocalResourcePack source : sources) {
+      keep.add(ByteBufUtil.hexDump(source.hash()));
+    }
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDirectory)) {
+      for (Path path : stream) {
+        String fileName = path.getFileName().toString();
+        String key = fileName.length() < 40 ? fileName : fileName.substring(0, 40);
+        if (!keep.contains(key) && !inFlight.containsKey(key)) {
+          Files.deleteIfExists(path);
+        }
+      }
+    } catch (IOException e) {
+      logger.warn("Unable to clean up optimized resource packs in {}", cacheDirectory, e);
+    }
+  }
+
+  /**
+   * Stops optimizing packs. Optimizations in progress are abandoned.
+   */
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private LocalResourcePack build(LocalResourcePack source, String key) throws IOException {
+    if (!Files.isDirectory(cacheDirectory)) {
+      Files.createDirectories(cacheDirectory);
+    }
+
+    long start = System.nanoTime();
+    Path temporary = Files.createTempFile(cacheDirectory, key, TEMPORARY_EXTENSION);
+    try {
+      MessageDigest digest = sha1();
+      Result result;
+      try (OutputStream out = new DigestOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporary)), digest)) {
+        result = optimize(source.path(), out);
+      }
+      byte[] hash = digest.digest();
+
+      // The hash goes first, so a pack that is found without one is known to be incomplete.
+      Files.writeString(cacheDirectory.resolve(key + HASH_EXTENSION), ByteBufUtil.hexDump(hash),
+          StandardCharsets.US_ASCII);
+      Path target = cacheDirectory.resolve(key + EXTENSION);
+      Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+
+      LocalResourcePack pack = new LocalResourcePack(source.id(), target, Files.size(target),
+          Files.getLastModifiedTime(target).toMillis(), hash);
+      logger.info("Optimized resource pack {} from {} to {} bytes in {} ms ({} files removed, "
+              + "{} duplicates removed, {} files minified)", source.id(), source.size(),
+          pack.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+          result.removed, result.duplicates, result.minified);
+      return pack;
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  private @Nullable LocalResourcePack readCached(String id, String key) throws IOException {
+    Path path = cacheDirectory.resolve(key + EXTENSION);
+    Path hashPath = cacheDirectory.resolve(key + HASH_EXTENSION);
+    if (!Files.isRegularFile(path) || !Files.isRegularFile(hashPath)) {
+      return null;
+    }
+    String hex = Files.readString(hashPath, StandardCharsets.US_ASCII).trim();
+    if (!VALID_KEY.matcher(hex).matches()) {
+      return null;
+    }
+    return new LocalResourcePack(id, path, Files.size(path),
+        Files.getLastModifiedTime(path).toMillis(), ByteBufUtil.decodeHexDump(hex));
+  }
+
+  /**
+   * Writes an optimized copy of a resource pack. Entries are written in order of their names, so
+   * the output only depends on the contents of the input.
+   *
+   * @param source the pack to optimize
+   * @param out the stream to write the optimized pack to, which is closed afterwards
+   * @return what was changed
+   * @throws IOException if the pack can't be read or the optimized pack can't be written
+   */
+  static Result optimize(Path source, OutputStream out) throws IOException {
+    Result result = new Result();
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    try (ZipFile zip = new ZipFile(source.toFile());
+        ZipOutputStream optimized = new ZipOutputStream(out)) {
+      optimized.setLevel(Deflater.BEST_COMPRESSION);
+
+      List<String> names = new ArrayList<>();
+      Set<String> seen = new HashSet<>();
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (entry.isDirectory()) {
+          continue;
+        }
+        if (isIgnored(entry.getName())) {
+          result.removed++;
+        } else if (!seen.add(entry.getName())) {
+          result.duplicates++;
+        } else {
+          names.add(entry.getName());
+        }
+      }
+      Collections.sort(names);
+
+      for (String name : names) {
+        // Looked up by name, so a duplicated file keeps the contents clients would have read.
+        byte[] contents;
+        try (InputStream in = zip.getInputStream(zip.getEntry(name))) {
+          contents = in.readAllBytes();
+        }
+        byte[] minified = minify(name, contents);
+        if (minified != contents) {
+          result.minified++;
+          contents = minified;
+        }
+        write(optimized, deflater, name, contents);
+      }
+    } finally {
+      deflater.end();
+    }
+    return result;
+  }
+
+  private static void write(ZipOutputStream out, Deflater deflater, String name, byte[] contents)
+      throws IOException {
+    ZipEntry entry = new ZipEntry(name);
+    entry.setTimeLocal(ENTRY_TIME);
+    if (deflatedSize(deflater, contents) >= contents.length) {
+      // Already compressed, like most textures and sounds.
+      CRC32 crc = new CRC32();
+      crc.update(contents);
+      entry.setMethod(ZipEntry.STORED);
+      entry.setSize(contents.length);
+      entry.setCompressedSize(contents.length);
+      entry.setCrc(crc.getValue());
+    } else {
+      entry.setMethod(ZipEntry.DEFLATED);
+    }
+    out.putNextEntry(entry);
+    out.write(contents);
+    out.closeEntry();
+  }
+
+  private static long deflatedSize(Deflater deflater, byte[] contents) {
+    deflater.reset();
+    deflater.setInput(contents);
+    deflater.finish();
+    byte[] buffer = new byte[8192];
+    while (!deflater.finished()) {
+      deflater.deflate(buffer);
+    }
+    return deflater.getBytesWritten();
+  }
+
+  static boolean isIgnored(String name) {
+    String lower = name.toLowerCase(Locale.ROOT);
+    if (lower.startsWith("__macosx/")) {
+      return true;
+    }
+    int slash = lower.lastIndexOf('/');
+    String fileName = lower.substring(slash + 1);
+    if (IGNORED_FILE_NAMES.contains(fileName) || fileName.startsWith("._")) {
+      return true;
+    }
+    // Version control and editor metadata, such as .git/ and .idea/.
+    for (String directory : lower.substring(0, slash + 1).split("/")) {
+      if (directory.startsWith(".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Minifies JSON and legacy {@code .lang} files. Files that can't be parsed are left alone.
+   *
+   * @param name the name of the file
+   * @param contents the contents of the file
+   * @return the minified contents, or {@code contents} itself if the file was not changed
+   */
+  static byte[] minify(String name, byte[] contents) {
+    String lower = name.toLowerCase(Locale.ROOT);
+    boolean json = lower.endsWith(".json") || lower.endsWith(".mcmeta");
+    boolean lang = lower.endsWith(".lang");
+    if (!json && !lang) {
+      return contents;
+    }
+
+    String text;
+    try {
+      text = StandardCharsets.UTF_8.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPORT)
+          .onUnmappableCharacter(CodingErrorAction.REPORT)
+          .decode(ByteBuffer.wrap(contents))
+          .toString();
+    } catch (CharacterCodingException e) {
+      return contents;
+    }
+
+    String minified;
+    if (json) {
+      try {
+        JsonElement element = JsonParser.parseString(text);
+        minified = GSON.toJson(element);
+      } catch (JsonParseException e) {
+        return contents;
+      }
+    } else {
+      StringBuilder builder = new StringBuilder(text.length());
+      for (String line : text.split("\r?\n")) {
+        String trimmed = line.strip();
+        if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+          builder.append(line).append('\n');
+        }
+      }
+      minified = builder.toString();
+    }
+
+    byte[] bytes = minified.getBytes(StandardCharsets.UTF_8);
+    return bytes.length < contents.length ? bytes : contents;
+  }
+
+  private static MessageDigest sha1() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Counts what {@link #optimize(Path, OutputStream)} changed in a pack.
+   */
+  static final class Result {
+
+    int removed;
+    int duplicates;
+    int minified;
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.connection.client.ConnectedPlayer;
+import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
+import com.velocitypowered.proxy.network.protocol.StateRegistry;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Offers players a resource pack while they are still in the configuration phase of their login,
+ * in parallel with the proxy connecting them to their initial server. The pack is looked up by
+ * the forced host the player joined through, then by the name of the first server the player will
+ * be sent to.
+ */
+public final class ResourcePackPrefetcher {
+
+  private static final Logger logger = LogManager.getLogger(ResourcePackPrefetcher.class);
+
+  private final VelocityServer server;
+
+  public ResourcePackPrefetcher(VelocityServer server) {
+    this.server = server;
+  }
+
+  /**
+   * Starts offering the configured pack to the {@code player}, if there is one.
+   *
+   * @param player the player who just entered the configuration phase
+   */
+  public void prefetch(ConnectedPlayer player) {
+    String source = configuredPack(player);
+    if (source == null) {
+      return;
+    }
+
+    createPack(source).thenAcceptAsync(pack -> {
+      if (pack == null) {
+        logger.debug("Not prefetching resource pack {} for {}: it is not available",
+            source, player);
+        return;
+      }
+      if (player.getConnection().isClosed()
+          || player.getConnection().getState() != StateRegistry.CONFIG) {
+        return;
+      }
+      player.prefetchResourcePack(pack);
+    }, player.getConnection().eventLoop());
+  }
+
+  private @Nullable String configuredPack(ConnectedPlayer player) {
+    Map<String, String> packs = server.configuration().getResourcePackPrefetch();
+    if (packs.isEmpty()) {
+      return null;
+    }
+
+    String host = player.virtualHost().map(InetSocketAddress::getHostString)
+        .orElse("")
+        .toLowerCase(Locale.ROOT);
+    String source = packs.get(host);
+    if (source != null) {
+      return source;
+    }
+    return player.getNextServerToTry()
+        .map(initial -> packs.get(initial.serverInfo().name().toLowerCase(Locale.ROOT)))
+        .orElse(null);
+  }
+
+  private CompletableFuture<@Nullable ResourcePackInfo> createPack(String source) {
+    if (!source.contains("://")) {
+      Optional<ResourcePackInfo.Builder> local = server.createLocalResourcePackBuilder(source);
+      return CompletableFuture.completedFuture(
+          local.map(ResourcePackInfo.Builder::build).orElse(null));
+    }
+
+    // The server's later request can only be recognised reliably by hash.
+    return server.getResourcePackHashResolver().resolve(source)
+        .thenApply(hash -> hash == null ? null
+            : new VelocityResourcePackInfo.BuilderImpl(source).hash(hash).build());
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides which queued resource packs are still worth sending to a player. On every protocol
+ * version the proxy supports, a newly offered server resource pack replaces the one the client
+ * had, so a pack that is still waiting in the queue behind a required pack of the same or a higher
+ * priority would be downloaded only to be thrown away again.
+ *
+ * <p>Only required packs supersede others. The player may decline an optional pack and keep the
+ * one before it, so dropping that earlier pack could leave them with neither. Required packs
+ * outrank optional ones, and packs offered by proxy plugins outrank those from backend servers, so
+ * that a server can never cause a proxy pack to be dropped before the player has seen it.
+ */
+public final class ResourcePackQueuePolicy {
+
+  private final LongAdder avoidedDownloads = new LongAdder();
+
+  /**
+   * Removes the packs from {@code queue} that are superseded by a required pack queued after them.
+   * The head of the queue is left alone, as it may already have been offered to the player.
+   *
+   * @param queue the queue of packs waiting to be sent, head first
+   * @return the packs that were removed, in queue order
+   */
+  public List<ResourcePackInfo> collapse(Deque<ResourcePackInfo> queue) {
+    if (queue.size() <= 2) {
+      return List.of();
+    }
+
+    List<ResourcePackInfo> superseded = new ArrayList<>();
+    int highestLaterRequired = Integer.MIN_VALUE;
+    Iterator<ResourcePackInfo> it = queue.descendingIterator();
+    int remaining = queue.size() - 1;
+    while (remaining-- > 0) {
+      ResourcePackInfo pack = it.next();
+      int priority = priority(pack);
+      if (priority <= highestLaterRequired) {
+        it.remove();
+        superseded.add(0, pack);
+      } else if (pack.required()) {
+        highestLaterRequired = priority;
+      }
+    }
+
+    avoidedDownloads.add(superseded.size());
+    return superseded;
+  }
+
+  /**
+   * Returns how many pack downloads have been avoided by skipping superseded packs.
+   *
+   * @return the number of skipped packs
+   */
+  public long avoidedDownloads() {
+    return avoidedDownloads.sum();
+  }
+
+  private static int priority(ResourcePackInfo pack) {
+    int priority = pack.required() ? 2 : 0;
+    if (pack.origin() == ResourcePackInfo.Origin.PLUGIN_ON_PROXY) {
+      priority++;
+    }
+    return priority;
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import com.google.common.collect.ImmutableList;
+import com.velocitypowered.api.event.player.PlayerResourcePackStatusEvent;
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import com.velocitypowered.api.proxy.player.ResourcePackStatistics;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Aggregates how long players take to answer resource pack offers and to download the packs,
+ * and how often they decline or fail, grouped by the host each pack is downloaded from.
+ */
+public final class ResourcePackTelemetry {
+
+  private static final int MAX_HOSTS = Integer.getInteger("velocity.resource-pack-telemetry-hosts",
+      256);
+  static final String OTHER_HOSTS = "(other)";
+
+  private final Map<String, HostStatistics> hosts = new ConcurrentHashMap<>();
+
+  /**
+   * Records that a pack was offered to a player.
+   *
+   * @param pack the pack
+   */
+  public void offered(ResourcePackInfo pack) {
+    statistics(pack).offered.increment();
+  }
+
+  /**
+   * Records a player's response to a pack.
+   *
+   * @param pack the pack
+   * @param status the response
+   * @param elapsedNanos the time since the offer was sent for an {@code ACCEPTED} or
+   *                     {@code DECLINED} response, otherwise the time since it was accepted, or a
+   *                     negative value if unknown
+   */
+  public void responded(ResourcePackInfo pack, PlayerResourcePackStatusEvent.Status status,
+      long elapsedNanos) {
+    HostStatistics statistics = statistics(pack);
+    switch (status) {
+      case ACCEPTED:
+        statistics.accepted.increment();
+        break;
+      case DECLINED:
+        statistics.declined.increment();
+        break;
+      case SUCCESSFUL:
+        statistics.successful.increment();
+        break;
+      case FAILED_DOWNLOAD:
+        statistics.failedDownloads.increment();
+        break;
+      default:
+        return;
+    }
+
+    if (elapsedNanos < 0) {
+      return;
+    }
+    if (status == PlayerResourcePackStatusEvent.Status.ACCEPTED
+        || status == PlayerResourcePackStatusEvent.Status.DECLINED) {
+      statistics.responseTimes.record(elapsedNanos);
+    } else {
+      statistics.downloadTimes.record(elapsedNanos);
+    }
+  }
+
+  public Collection<ResourcePackStatistics> statistics() {
+    return ImmutableList.copyOf(hosts.values());
+  }
+
+  private HostStatistics statistics(ResourcePackInfo pack) {
+    String host = hostOf(pack.url());
+    HostStatistics statistics = hosts.get(host);
+    if (statistics != null) {
+      return statistics;
+    }
+    if (hosts.size() >= MAX_HOSTS) {
+      // Keep a misbehaving plugin offering packs from random hosts from growing this forever.
+      host = OTHER_HOSTS;
+    }
+    return hosts.computeIfAbsent(host, HostStatistics::new);
+  }
+
+  static String hostOf(String url) {
+    try {
+      String host = URI.create(url).getHost();
+      if (host != null) {
+        return host.toLowerCase(Locale.ROOT);
+      }
+    } catch (IllegalArgumentException ignored) {
+      // Fall through, the client will not be able to download it either.
+    }
+    return OTHER_HOSTS;
+  }
+
+  private static final class HostStatistics implements ResourcePackStatistics {
+
+    private final String host;
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder successful = new LongAdder();
+    private final LongAdder failedDownloads = new LongAdder();
+    private final LatencyHistogram responseTimes = new LatencyHistogram();
+    private final LatencyHistogram downloadTimes = new LatencyHistogram();
+
+    private HostStatistics(String host) {
+      this.host = host;
+    }
+
+    @Override
+    public String host() {
+      return host;
+    }
+
+    @Override
+    public long offered() {
+      return offered.sum();
+    }
+
+    @Override
+    public long accepted() {
+      return accepted.sum();
+    }
+
+    @Override
+    public long declined() {
+      return declined.sum();
+    }
+
+    @Override
+    public long successful() {
+      return successful.sum();
+    }
+
+    @Override
+    public long failedDownloads() {
+      return failedDownloads.sum();
+    }
+
+    @Override
+    public Duration responseTime(double percentile) {
+      return responseTimes.percentile(percentile);
+    }
+
+    @Override
+    public Duration downloadTime(double percentile) {
+      return downloadTimes.percentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+      return "ResourcePackStatistics{"
+          + "host='" + host + '\''
+          + ", offered=" + offered()
+          + ", accepted=" + accepted()
+          + ", declined=" + declined()
+          + ", successful=" + successful()
+          + ", failedDownloads=" + failedDownloads()
+          + '}';
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Caches the results of pinging backend servers on behalf of clients, per server and protocol
+ * version. While a result is fresh it is handed out as is. Once it is older than the TTL, the next
+ * request starts a new ping but is still answered with the old result, so clients never wait for a
+ * backend unless no result is known or the known one is too old to be served at all. Only one ping
+ * per server and protocol version is in flight at a time.
+ *
+ * <p>Failed pings are cached as well, so a server that is down is not pinged for every client.
+ */
+public final class BackendPingCache {
+
+  private static final Duration MAX_STALENESS =
+      Duration.ofMillis(Long.getLong("velocity.ping-passthrough-max-stale", 60_000));
+
+  private final Ticker ticker;
+  private final long maxStaleNanos;
+  private final Cache<Key, Entry> entries;
+
+  public BackendPingCache() {
+    this(MAX_STALENESS, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  BackendPingCache(Duration maxStaleness, Ticker ticker) {
+    this.ticker = Preconditions.checkNotNull(ticker, "ticker");
+    this.maxStaleNanos = maxStaleness.toNanos();
+    this.entries = Caffeine.newBuilder()
+        .ticker(ticker)
+        .expireAfterAccess(maxStaleness)
+        .build();
+  }
+
+  /**
+   * Returns the ping result for the specified server and protocol version, pinging the server with
+   * {@code ping} if there is no result that can be served.
+   *
+   * @param server the server to ping
+   * @param version the protocol version to ping the server with
+   * @param ttl how long a result is fresh for, or zero to always ping the server
+   * @param ping starts pinging the server
+   * @return a future with the ping result
+   */
+  public CompletableFuture<ServerPing> ping(ServerInfo server, ProtocolVersion version,
+      Duration ttl, Supplier<CompletableFuture<ServerPing>> ping) {
+    if (ttl.isZero() || ttl.isNegative()) {
+      return ping.get();
+    }
+    return entries.get(new Key(server, version), key -> new Entry())
+        .get(ttl.toNanos(), ping);
+  }
+
+  /**
+   * Forgets every cached result.
+   */
+  public void clear() {
+    entries.invalidateAll();
+  }
+
+  private static final class Key {
+
+    private final ServerInfo server;
+    private final ProtocolVersion version;
+
+    private Key(ServerInfo server, ProtocolVersion version) {
+      this.server = server;
+      this.version = version;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return server.equals(key.server) && version == key.version;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(server, version);
+    }
+  }
+
+  private final class Entry {
+
+    // The last completed ping, and the time it completed at.
+    private @Nullable CompletableFuture<ServerPing> result;
+    private long completedAt;
+    private @Nullable CompletableFuture<ServerPing> refresh;
+
+    private synchronized CompletableFuture<ServerPing> get(long ttlNanos,
+        Supplier<CompletableFuture<ServerPing>> ping) {
+      if (result != null) {
+        long age = ticker.read() - completedAt;
+        if (age < ttlNanos) {
+          return result;
+        }
+        if (age < Math.max(ttlNanos, maxStaleNanos)) {
+          // Serve the stale result while the server is pinged again.
+          refresh(ping);
+          return result;
+        }
+      }
+      return refresh(ping);
+    }
+
+    private CompletableFuture<ServerPing> refresh(Supplier<CompletableFuture<ServerPing>> ping) {
+      CompletableFuture<ServerPing> current = refresh;
+      if (current == null) {
+        CompletableFuture<ServerPing> started = ping.get();
+        refresh = started;
+        started.whenComplete((response, throwable) -> completed(started));
+        current = started;
+      }
+      return current;
+    }
+
+    private synchronized void completed(CompletableFuture<ServerPing> ping) {
+      if (refresh == ping) {
+        refresh = null;
+      }
+      result = ping;
+      completedAt = ticker.read();
+    }
+  }
+}
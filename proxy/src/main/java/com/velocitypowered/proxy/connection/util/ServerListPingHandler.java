@@ -28,14 +28,16 @@ import com.velocitypowered.api.util.ModInfo;
 import com.velocitypowered.proxy.VelocityServer;
 import com.velocitypowered.proxy.config.PingPassthroughMode;
 import com.velocitypowered.proxy.config.VelocityConfiguration;
-import com.velocitypowered.proxy.network.protocol.packet.StatusResponse;
 import com.velocitypowered.proxy.server.VelocityRegisteredServer;
+import io.netty.buffer.ByteBuf;
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Common utilities for handling server list ping results.
@@ -43,6 +45,8 @@ import java.util.concurrent.CompletableFuture;
 public class ServerListPingHandler {
 
   private final VelocityServer server;
+  private final BackendPingCache pingCache = new BackendPingCache();
+  private final StatusResponseCache statusCache = new StatusResponseCache();
 
   public ServerListPingHandler(VelocityServer server) {
     this.server = server;
@@ -68,14 +72,16 @@ public class ServerListPingHandler {
       PingPassthroughMode mode, List<String> servers, ProtocolVersion responseProtocolVersion) {
     ServerPing fallback = constructLocalPing(connection.protocolVersion());
     List<CompletableFuture<ServerPing>> pings = new ArrayList<>();
+    Duration cacheTtl = Duration.ofMillis(server.configuration().getPingPassthroughCacheTtl());
     for (String s : servers) {
       Optional<RegisteredServer> rs = server.server(s);
       if (rs.isEmpty()) {
         continue;
       }
       VelocityRegisteredServer vrs = (VelocityRegisteredServer) rs.get();
-      pings.add(vrs.ping(connection.getConnection().eventLoop(), PingOptions.builder()
-          .version(responseProtocolVersion).build()));
+      pings.add(pingCache.ping(vrs.serverInfo(), responseProtocolVersion, cacheTtl,
+          () -> vrs.ping(connection.getConnection().eventLoop(), PingOptions.builder()
+              .version(responseProtocolVersion).build())));
     }
     if (pings.isEmpty()) {
       return CompletableFuture.completedFuture(fallback);
@@ -152,15 +158,19 @@ public class ServerListPingHandler {
     if (passthroughMode == PingPassthroughMode.DISABLED) {
       return CompletableFuture.completedFuture(constructLocalPing(shownVersion));
     } else {
-      String virtualHostStr = connection.virtualHost().map(InetSocketAddress::getHostString)
-          .map(str -> str.toLowerCase(Locale.ROOT))
-          .orElse("");
+      String virtualHostStr = virtualHost(connection);
       List<String> serversToTry = server.configuration().getForcedHosts().getOrDefault(
           virtualHostStr, server.configuration().getAttemptConnectionOrder());
       return attemptPingPassthrough(connection, passthroughMode, serversToTry, shownVersion);
     }
   }
 
+  private static String virtualHost(VelocityInboundConnection connection) {
+    return connection.virtualHost().map(InetSocketAddress::getHostString)
+        .map(str -> str.toLowerCase(Locale.ROOT))
+        .orElse("");
+  }
+
   /**
    * Gets the current server ping for this connection, firing {@code ProxyPingEvent} if the ping is
    * not cached.
@@ -175,19 +185,52 @@ public class ServerListPingHandler {
   }
 
   /**
-   * Gets the current server ping for this connection, firing {@code ProxyPingEvent} if the ping is
-   * not cached.
+   * Gets the encoded status response packet for this connection, reusing a cached response when
+   * possible. The returned buffer holds the packet ID and contents, without the packet length.
    *
    * @param connection the connection being pinged
-   * @return the server ping as a completable future
+   * @return the encoded status response as a completable future
    */
-  public CompletableFuture<StatusResponse> getPacketResponse(VelocityInboundConnection connection) {
+  public CompletableFuture<ByteBuf> getEncodedPacketResponse(
+      VelocityInboundConnection connection) {
+    VelocityConfiguration configuration = server.configuration();
+    ProtocolVersion version = connection.protocolVersion();
+    String cacheHost;
+    long maxAgeNanos;
+    if (configuration.getPingPassthrough() == PingPassthroughMode.DISABLED) {
+      cacheHost = "";
+      maxAgeNanos = Long.MAX_VALUE;
+    } else {
+      // Only forced hosts get responses of their own, which also bounds the size of the cache.
+      String virtualHost = virtualHost(connection);
+      cacheHost = configuration.getForcedHosts().containsKey(virtualHost) ? virtualHost : "";
+      maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getPingPassthroughCacheTtl());
+    }
+
+    int playerCount = server.onlinePlayerCount();
+    if (maxAgeNanos > 0) {
+      ByteBuf cached = statusCache.get(version, cacheHost, playerCount, maxAgeNanos);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    }
     return this.getInitialPing(connection)
         .thenApply(ping -> {
           StringBuilder json = new StringBuilder();
-          VelocityServer.getPingGsonInstance(connection.protocolVersion())
-              .toJson(ping, json);
-          return new StatusResponse(json);
+          VelocityServer.getPingGsonInstance(version).toJson(ping, json);
+          if (maxAgeNanos > 0) {
+            return statusCache.put(version, cacheHost, playerCount, json);
+          }
+          return StatusResponseCache.encode(version, json);
         });
   }
+
+  /**
+   * Forgets every cached ping and status response, for example because the configuration was
+   * reloaded.
+   */
+  public void invalidateCaches() {
+    pingCache.clear();
+    statusCache.clear();
+  }
 }
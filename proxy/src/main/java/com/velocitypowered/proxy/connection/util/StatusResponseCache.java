@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.util;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.network.protocol.StateRegistry;
+import com.velocitypowered.proxy.network.protocol.packet.StatusResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Caches encoded {@link StatusResponse} packets, per client protocol version and virtual host, so
+ * answering a status request is usually a matter of writing a duplicate of a buffer instead of
+ * building a {@code ServerPing} and serializing it to JSON.
+ *
+ * <p>An entry is replaced when the online player count it shows is outdated, but no more often
+ * than once per debounce interval, so players joining and leaving don't defeat the cache.
+ */
+public final class StatusResponseCache {
+
+  private static final long PLAYER_COUNT_DEBOUNCE_NANOS = TimeUnit.MILLISECONDS.toNanos(
+      Long.getLong("velocity.status-response-player-count-debounce", 1000));
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final LongSupplier nanoTime;
+
+  public StatusResponseCache() {
+    this(System::nanoTime);
+  }
+
+  @VisibleForTesting
+  StatusResponseCache(LongSupplier nanoTime) {
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Returns the cached response for the specified protocol version and virtual host.
+   *
+   * @param version the protocol version of the client
+   * @param virtualHost the virtual host the client connected to, or an empty string
+   * @param playerCount the current online player count
+   * @param maxAgeNanos how old the response may be, in nanoseconds
+   * @return a duplicate of the encoded response, or {@code null} if there is none to use
+   */
+  public @Nullable ByteBuf get(ProtocolVersion version, String virtualHost, int playerCount,
+      long maxAgeNanos) {
+    Entry entry = entries.get(new Key(version, virtualHost));
+    if (entry == null) {
+      return null;
+    }
+    long age = nanoTime.getAsLong() - entry.createdAt;
+    if (age >= maxAgeNanos
+        || (entry.playerCount != playerCount && age >= PLAYER_COUNT_DEBOUNCE_NANOS)) {
+      return null;
+    }
+    return entry.encoded.duplicate();
+  }
+
+  /**
+   * Encodes and caches a response.
+   *
+   * @param version the protocol version of the client
+   * @param virtualHost the virtual host the client connected to, or an empty string
+   * @param playerCount the online player count the response was built with
+   * @param status the JSON status
+   * @return a duplicate of the encoded response
+   */
+  public ByteBuf put(ProtocolVersion version, String virtualHost, int playerCount,
+      CharSequence status) {
+    ByteBuf encoded = encode(version, status);
+    entries.put(new Key(version, virtualHost),
+        new Entry(encoded, playerCount, nanoTime.getAsLong()));
+    return encoded.duplicate();
+  }
+
+  /**
+   * Forgets every cached response.
+   */
+  public void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Encodes a {@link StatusResponse} packet, including its packet ID but not its length. The
+   * buffer is never released, so it can be shared between connections through duplicates.
+   *
+   * @param version the protocol version to encode the packet for
+   * @param status the JSON status
+   * @return the encoded packet
+   */
+  static ByteBuf encode(ProtocolVersion version, CharSequence status) {
+    StatusResponse packet = new StatusResponse(status);
+    ByteBuf buf = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(buf, StateRegistry.STATUS
+        .getProtocolRegistry(ProtocolUtils.Direction.CLIENTBOUND, version)
+        .getPacketId(packet));
+    packet.encode(buf, ProtocolUtils.Direction.CLIENTBOUND, version);
+    return Unpooled.unreleasableBuffer(buf);
+  }
+
+  private static final class Key {
+
+    private final ProtocolVersion version;
+    private final String virtualHost;
+
+    private Key(ProtocolVersion version, String virtualHost) {
+      this.version = version;
+      this.virtualHost = virtualHost;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key key = (Key) o;
+      return version == key.version && virtualHost.equals(key.virtualHost);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(version, virtualHost);
+    }
+  }
+
+  private static final class Entry {
+
+    private final ByteBuf encoded;
+    private final int playerCount;
+    private final long createdAt;
+
+    private Entry(ByteBuf encoded, int playerCount, long createdAt) {
+      this.encoded = encoded;
+      this.playerCount = playerCount;
+      this.createdAt = createdAt;
+    }
+  }
+}
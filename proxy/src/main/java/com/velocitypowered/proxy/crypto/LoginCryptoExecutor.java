@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.crypto;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs the RSA operations of the login process off the network threads. The pool has a fixed
+ * number of threads and a bounded queue: once the queue is full, new work is rejected right away
+ * so the caller can turn the player away instead of letting a join storm pile up behind it.
+ */
+public final class LoginCryptoExecutor {
+
+  private static final Logger logger = LogManager.getLogger(LoginCryptoExecutor.class);
+  private static final int THREADS = Integer.getInteger("velocity.login-crypto-threads",
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  private static final int QUEUE_CAPACITY = Integer.getInteger("velocity.login-crypto-queue-size",
+      1024);
+  private static final long SATURATION_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final ThreadPoolExecutor executor;
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder busyNanos = new LongAdder();
+  private final AtomicLong lastSaturationWarning = new AtomicLong(
+      System.nanoTime() - SATURATION_WARNING_INTERVAL_NANOS);
+
+  public LoginCryptoExecutor() {
+    this(THREADS, QUEUE_CAPACITY);
+  }
+
+  @VisibleForTesting
+  LoginCryptoExecutor(int threads, int queueCapacity) {
+    Preconditions.checkArgument(threads > 0, "threads must be positive");
+    Preconditions.checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new ThreadFactoryBuilder()
+            .setNameFormat("Velocity Login Crypto #%d")
+            .setDaemon(true)
+            .build(), new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  /**
+   * Schedules the specified task. The returned future is completed on a crypto thread, so callers
+   * should hop back onto their own event loop before touching the connection.
+   *
+   * @param task the task to run
+   * @param <T> the type of the result
+   * @return a future completed with the result of the task
+   * @throws RejectedExecutionException if too many tasks are already waiting to run
+   */
+  public <T> CompletableFuture<T> submit(Callable<T> task) {
+    Preconditions.checkNotNull(task, "task");
+    CompletableFuture<T> future = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        long start = System.nanoTime();
+        try {
+          future.complete(task.call());
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        } finally {
+          busyNanos.add(System.nanoTime() - start);
+          completed.increment();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      if (!executor.isShutdown()) {
+        rejected.increment();
+        warnSaturated();
+      }
+      throw e;
+    }
+    return future;
+  }
+
+  private void warnSaturated() {
+    long now = System.nanoTime();
+    long last = lastSaturationWarning.get();
+    if (now - last >= SATURATION_WARNING_INTERVAL_NANOS
+        && lastSaturationWarning.compareAndSet(last, now)) {
+      logger.warn("The login crypto queue is full ({} waiting), turning away new logins. "
+          + "{} logins have been rejected so far.", executor.getQueue().size(), rejected.sum());
+    }
+  }
+
+  /**
+   * Returns the number of tasks waiting for a crypto thread.
+   *
+   * @return the number of queued tasks
+   */
+  public int getQueuedTasks() {
+    return executor.getQueue().size();
+  }
+
+  /**
+   * Returns the number of tasks that have finished running, successfully or not.
+   *
+   * @return the number of completed tasks
+   */
+  public long getCompletedTasks() {
+    return completed.sum();
+  }
+
+  /**
+   * Returns the number of tasks rejected because the queue was full.
+   *
+   * @return the number of rejected tasks
+   */
+  public long getRejectedTasks() {
+    return rejected.sum();
+  }
+
+  /**
+   * Returns the average time a completed task spent running, in nanoseconds.
+   *
+   * @return the average run time, or {@code 0} if no task has completed yet
+   */
+  public long getAverageTaskNanos() {
+    long count = completed.sum();
+    return count == 0 ? 0 : busyNanos.sum() / count;
+  }
+
+  /**
+   * Stops accepting new tasks. Tasks that were already queued still run.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
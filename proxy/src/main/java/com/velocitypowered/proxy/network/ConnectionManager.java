@@ -26,6 +26,8 @@ import com.velocitypowered.api.event.proxy.ListenerCloseEvent;
 import com.velocitypowered.api.network.ListenerType;
 import com.velocitypowered.natives.util.Natives;
 import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.crypto.LoginCryptoExecutor;
+import com.velocitypowered.proxy.network.pipeline.compression.CompressionOffloadExecutor;
 import com.velocitypowered.proxy.network.pipeline.initializers.BackendChannelInitializer;
 import com.velocitypowered.proxy.network.pipeline.initializers.BackendChannelInitializerHolder;
 import com.velocitypowered.proxy.network.pipeline.initializers.ServerChannelInitializer;
@@ -36,10 +38,13 @@ import com.velocitypowered.proxy.network.util.TransportType;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.WriteBufferWaterMark;
+import io.netty.incubator.channel.uring.IOUring;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
@@ -75,7 +80,10 @@ public final class ConnectionManager {
   public final BackendChannelInitializerHolder backendChannelInitializer;
 
   private final SeparatePoolInetNameResolver resolver;
+  private final EventLoopGroup httpClientGroup;
   private final AsyncHttpClient httpClient;
+  private final CompressionOffloadExecutor compressionOffloadExecutor;
+  private final LoginCryptoExecutor loginCryptoExecutor;
 
   /**
    * Initalizes the {@code ConnectionManager}.
@@ -92,8 +100,11 @@ public final class ConnectionManager {
     this.backendChannelInitializer = new BackendChannelInitializerHolder(
         new BackendChannelInitializer(this.server));
     this.resolver = new SeparatePoolInetNameResolver(GlobalEventExecutor.INSTANCE);
+    this.compressionOffloadExecutor = new CompressionOffloadExecutor();
+    this.loginCryptoExecutor = new LoginCryptoExecutor();
+    this.httpClientGroup = createHttpClientGroup(this.transportType, this.workerGroup);
     this.httpClient = asyncHttpClient(config()
-        .setEventLoopGroup(this.workerGroup)
+        .setEventLoopGroup(this.httpClientGroup)
         .setUserAgent(server.version().name() + "/" + server.version().version())
         .addRequestFilter(new RequestFilter() {
           @Override
@@ -108,7 +119,28 @@ public final class ConnectionManager {
         .build());
   }
 
+  /**
+   * Returns the event loop group AsyncHttpClient should run on. It shares the worker group unless
+   * the transport is one AsyncHttpClient can't drive, in which case it gets a group of its own.
+   *
+   * @param transportType the transport used for the workers
+   * @param workerGroup the worker group
+   * @return the event loop group for the HTTP client
+   */
+  static EventLoopGroup createHttpClientGroup(TransportType transportType,
+      EventLoopGroup workerGroup) {
+    TransportType httpClientTransport = transportType.getHttpClientTransport();
+    if (httpClientTransport == transportType) {
+      return workerGroup;
+    }
+    return httpClientTransport.createEventLoopGroup(TransportType.Type.HTTP_CLIENT);
+  }
+
   public void logChannelInformation() {
+    if (TransportType.isIoUringRequested() && this.transportType != TransportType.IO_URING) {
+      LOGGER.warn("io_uring was requested but is not supported on this system ({}), "
+          + "falling back to {}", IOUring.unavailabilityCause(), this.transportType);
+    }
     LOGGER.info("Connections will use {} channels, {} compression, {} ciphers", this.transportType,
         Natives.compress.getLoadedVariant(), Natives.cipher.getLoadedVariant());
   }
@@ -179,6 +211,25 @@ public final class ConnectionManager {
         });
   }
 
+  /**
+   * Binds an HTTP listener to the specified {@code address}. Unlike the Minecraft and query
+   * listeners, the channel is not tracked as an endpoint; the caller is responsible for closing
+   * it.
+   *
+   * @param address      the address to bind to
+   * @param childHandler the handler that sets up each accepted connection
+   * @return the future for the bind operation
+   */
+  public ChannelFuture httpBind(final SocketAddress address, final ChannelHandler childHandler) {
+    return new ServerBootstrap()
+        .channelFactory(this.transportType.getServerChannelFactory(address))
+        .group(this.bossGroup, this.workerGroup)
+        .childOption(ChannelOption.TCP_NODELAY, true)
+        .childHandler(childHandler)
+        .localAddress(address)
+        .bind();
+  }
+
   /**
    * Creates a {@link Bootstrap} using Velocity's event loops.
    *
@@ -255,6 +306,12 @@ public final class ConnectionManager {
     this.closeEndpoints(true);
 
     this.resolver.shutdown();
+    this.compressionOffloadExecutor.shutdown();
+    this.loginCryptoExecutor.shutdown();
+    if (this.httpClientGroup != this.workerGroup) {
+      // AsyncHttpClient never shuts down an event loop group it was given.
+      this.httpClientGroup.shutdownGracefully();
+    }
   }
 
   public EventLoopGroup getBossGroup() {
@@ -269,6 +326,14 @@ public final class ConnectionManager {
     return httpClient;
   }
 
+  public CompressionOffloadExecutor getCompressionOffloadExecutor() {
+    return compressionOffloadExecutor;
+  }
+
+  public LoginCryptoExecutor getLoginCryptoExecutor() {
+    return loginCryptoExecutor;
+  }
+
   public BackendChannelInitializerHolder getBackendChannelInitializer() {
     return this.backendChannelInitializer;
   }
@@ -34,6 +34,7 @@ public class Connections {
   public static final String LEGACY_PING_ENCODER = "legacy-ping-encoder";
   public static final String MINECRAFT_DECODER = "minecraft-decoder";
   public static final String MINECRAFT_ENCODER = "minecraft-encoder";
+  public static final String OUTBOUND_PRIORITY = "outbound-priority";
   public static final String READ_TIMEOUT = "read-timeout";
   public static final String PLAY_PACKET_QUEUE = "play-packet-queue";
 
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.compression;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+/**
+ * A packet that is still in its compressed form, as received from the remote end. The content
+ * consists of the uncompressed size of the packet followed by the zlib-compressed packet data,
+ * which is exactly what {@link MinecraftCompressorAndLengthEncoder} would produce after the
+ * packet length.
+ */
+public final class CompressedPacket extends DefaultByteBufHolder {
+
+  private final int uncompressedSize;
+
+  public CompressedPacket(ByteBuf data, int uncompressedSize) {
+    super(data);
+    this.uncompressedSize = uncompressedSize;
+  }
+
+  public int getUncompressedSize() {
+    return uncompressedSize;
+  }
+
+  @Override
+  public CompressedPacket replace(ByteBuf content) {
+    return new CompressedPacket(content, uncompressedSize);
+  }
+
+  @Override
+  public CompressedPacket retain() {
+    super.retain();
+    return this;
+  }
+
+  @Override
+  public CompressedPacket retain(int increment) {
+    super.retain(increment);
+    return this;
+  }
+
+  @Override
+  public CompressedPacket touch() {
+    super.touch();
+    return this;
+  }
+
+  @Override
+  public CompressedPacket touch(Object hint) {
+    super.touch(hint);
+    return this;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.compression;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of threads that compress large packets away from the Netty event loops. Each
+ * worker thread compresses with its own {@link SharedCompressors thread-local compressor}.
+ */
+public final class CompressionOffloadExecutor {
+
+  private static final int THREADS = Integer.getInteger("velocity.compression-offload-threads",
+      Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  private static final int QUEUE_CAPACITY = Integer.getInteger(
+      "velocity.compression-offload-queue-size", 1024);
+
+  private final ThreadPoolExecutor executor;
+  private final LongAdder offloadedPackets = new LongAdder();
+  private final LongAdder offloadedBytes = new LongAdder();
+  private final LongAdder offloadedNanos = new LongAdder();
+  private final LongAdder rejectedPackets = new LongAdder();
+
+  /**
+   * Creates a new compression executor. Worker threads are only started once a packet is first
+   * offloaded.
+   */
+  public CompressionOffloadExecutor() {
+    ThreadFactory delegate = new ThreadFactoryBuilder()
+        .setNameFormat("Velocity Compression Worker #%d")
+        .setDaemon(true)
+        .build();
+    this.executor = new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+        task -> delegate.newThread(() -> {
+          try {
+            task.run();
+          } finally {
+            SharedCompressors.release();
+          }
+        }));
+  }
+
+  /**
+   * Attempts to run {@code task} on a compression worker.
+   *
+   * @param task the task to run
+   * @return {@code false} if the pool is saturated or shut down, in which case the caller should
+   *         compress the packet itself
+   */
+  boolean submit(Runnable task) {
+    try {
+      executor.execute(task);
+      return true;
+    } catch (RejectedExecutionException e) {
+      rejectedPackets.increment();
+      return false;
+    }
+  }
+
+  void recordOffload(int uncompressedBytes, long nanos) {
+    offloadedPackets.increment();
+    offloadedBytes.add(uncompressedBytes);
+    offloadedNanos.add(nanos);
+  }
+
+  public long getOffloadedPackets() {
+    return offloadedPackets.sum();
+  }
+
+  public long getOffloadedBytes() {
+    return offloadedBytes.sum();
+  }
+
+  /**
+   * Returns the total time spent compressing offloaded packets. This is the time the event loops
+   * would otherwise have spent compressing them.
+   *
+   * @return the time saved on the event loops, in nanoseconds
+   */
+  public long getEventLoopNanosSaved() {
+    return offloadedNanos.sum();
+  }
+
+  public long getRejectedPackets() {
+    return rejectedPackets.sum();
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+}
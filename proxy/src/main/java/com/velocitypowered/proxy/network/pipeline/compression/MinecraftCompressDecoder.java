@@ -22,11 +22,16 @@ import static com.velocitypowered.natives.util.MoreByteBufUtils.preferredBuffer;
 import static com.velocitypowered.proxy.network.protocol.util.NettyPreconditions.checkFrame;
 
 import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.network.pipeline.deser.MinecraftDecoder;
 import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Decompresses a Minecraft packet.
@@ -42,6 +47,9 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
 
   private int threshold;
   private final VelocityCompressor compressor;
+  private @Nullable MinecraftDecoder passthroughDecoder;
+  private @Nullable Inflater peekInflater;
+  private @Nullable ByteBuffer peekBuffer;
 
   public MinecraftCompressDecoder(int threshold, VelocityCompressor compressor) {
     this.threshold = threshold;
@@ -50,6 +58,7 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
 
   @Override
   protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+    int originalReaderIndex = in.readerIndex();
     int claimedUncompressedSize = ProtocolUtils.readVarInt(in);
     if (claimedUncompressedSize == 0) {
       // This message is not compressed.
@@ -63,6 +72,13 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
         "Uncompressed size %s exceeds hard threshold of %s", claimedUncompressedSize,
         UNCOMPRESSED_CAP);
 
+    if (passthroughDecoder != null && canPassThrough(in)) {
+      // Nobody on the proxy is interested in this packet, so hand it over still compressed.
+      in.readerIndex(originalReaderIndex);
+      out.add(new CompressedPacket(in.retain(), claimedUncompressedSize));
+      return;
+    }
+
     ByteBuf compatibleIn = ensureCompatible(ctx.alloc(), compressor, in);
     ByteBuf uncompressed = preferredBuffer(ctx.alloc(), compressor, claimedUncompressedSize);
     try {
@@ -76,12 +92,67 @@ public class MinecraftCompressDecoder extends MessageToMessageDecoder<ByteBuf> {
     }
   }
 
+  /**
+   * Inflates just enough of the packet to read its ID and checks whether the packet would be
+   * decoded by the {@link MinecraftDecoder}.
+   *
+   * @param in the compressed packet data, positioned after the uncompressed size
+   * @return whether the packet may be passed along without inflating it
+   */
+  private boolean canPassThrough(ByteBuf in) {
+    if (in.nioBufferCount() != 1) {
+      return false;
+    }
+
+    if (peekInflater == null) {
+      peekInflater = new Inflater();
+      peekBuffer = ByteBuffer.allocate(5);
+    }
+    peekInflater.reset();
+    peekBuffer.clear();
+    peekInflater.setInput(in.nioBuffer());
+    try {
+      peekInflater.inflate(peekBuffer);
+    } catch (DataFormatException e) {
+      // Let the full inflation deal with the bad data.
+      return false;
+    }
+    peekBuffer.flip();
+
+    int packetId = 0;
+    for (int i = 0; i < 5; i++) {
+      if (!peekBuffer.hasRemaining()) {
+        return false;
+      }
+      byte b = peekBuffer.get();
+      packetId |= (b & 0x7F) << (i * 7);
+      if ((b & 0x80) != 128) {
+        return !passthroughDecoder.isDecoded(packetId);
+      }
+    }
+    return false;
+  }
+
   @Override
   public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
     compressor.close();
+    if (peekInflater != null) {
+      peekInflater.end();
+    }
   }
 
   public void setThreshold(int threshold) {
     this.threshold = threshold;
   }
+
+  /**
+   * Sets the decoder used to determine which packets the proxy needs to see. Compressed packets
+   * that this decoder would not decode are emitted as {@link CompressedPacket}s instead of being
+   * inflated. Passing {@code null} turns the passthrough off.
+   *
+   * @param passthroughDecoder the decoder to consult, or {@code null}
+   */
+  public void setPassthroughDecoder(@Nullable MinecraftDecoder passthroughDecoder) {
+    this.passthroughDecoder = passthroughDecoder;
+  }
 }
@@ -23,9 +23,16 @@ import com.velocitypowered.natives.compression.VelocityCompressor;
 import com.velocitypowered.natives.util.MoreByteBufUtils;
 import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.EncoderException;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.util.ReferenceCountUtil;
+import java.util.ArrayDeque;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.zip.DataFormatException;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Handler for compressing Minecraft packets.
@@ -34,12 +41,189 @@ public class MinecraftCompressorAndLengthEncoder extends MessageToByteEncoder<By
 
   private int threshold;
   private final VelocityCompressor compressor;
+  private @Nullable CompressionOffloadExecutor offloadExecutor;
+  private int offloadThreshold;
+  private int offloadLevel;
+  // Writes waiting for an offloaded packet ahead of them to be compressed, in channel order.
+  private final ArrayDeque<PendingWrite> pendingWrites = new ArrayDeque<>();
+  private boolean flushPending;
+  private boolean removed;
 
   public MinecraftCompressorAndLengthEncoder(int threshold, VelocityCompressor compressor) {
     this.threshold = threshold;
     this.compressor = compressor;
   }
 
+  /**
+   * Compresses packets of at least {@code offloadThreshold} bytes on {@code executor} instead of
+   * on the event loop. Packets are still written out in the order they were received.
+   *
+   * @param executor the executor to compress large packets on
+   * @param offloadThreshold the uncompressed size from which packets are offloaded
+   * @param level the compression level the workers should use
+   */
+  public void enableOffload(CompressionOffloadExecutor executor, int offloadThreshold,
+      int level) {
+    this.offloadExecutor = executor;
+    this.offloadThreshold = offloadThreshold;
+    this.offloadLevel = level;
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (!pendingWrites.isEmpty()) {
+      // Something ahead of this message is still being compressed, so it has to wait its turn.
+      pendingWrites.add(new PendingWrite(msg, promise));
+      return;
+    }
+    if (shouldOffload(msg)) {
+      PendingWrite pending = new PendingWrite(msg, promise).markOffloaded();
+      pendingWrites.add(pending);
+      if (offload(ctx, pending)) {
+        return;
+      }
+      pendingWrites.clear();
+    }
+    writeNow(ctx, msg, promise);
+  }
+
+  private void writeNow(ChannelHandlerContext ctx, Object msg, ChannelPromise promise)
+      throws Exception {
+    if (msg instanceof CompressedPacket) {
+      writePreCompressed(ctx, (CompressedPacket) msg, promise);
+    } else {
+      super.write(ctx, msg, promise);
+    }
+  }
+
+  @Override
+  public void flush(ChannelHandlerContext ctx) throws Exception {
+    if (!pendingWrites.isEmpty()) {
+      flushPending = true;
+    }
+    ctx.flush();
+  }
+
+  private boolean shouldOffload(Object msg) {
+    if (offloadExecutor == null || !(msg instanceof ByteBuf)) {
+      return false;
+    }
+    int size = ((ByteBuf) msg).readableBytes();
+    return size >= threshold && size >= offloadThreshold;
+  }
+
+  private boolean offload(ChannelHandlerContext ctx, PendingWrite pending) {
+    CompressionOffloadExecutor executor = this.offloadExecutor;
+    ByteBuf msg = (ByteBuf) pending.msg;
+    int uncompressedSize = msg.readableBytes();
+    int level = this.offloadLevel;
+    ByteBufAllocator alloc = ctx.alloc();
+    return executor.submit(() -> {
+      ByteBuf out = null;
+      Throwable failure = null;
+      long start = System.nanoTime();
+      try {
+        VelocityCompressor workerCompressor = SharedCompressors.get(level);
+        out = compressFrame(alloc, workerCompressor, msg);
+      } catch (Throwable e) {
+        failure = e;
+      }
+      executor.recordOffload(uncompressedSize, System.nanoTime() - start);
+      pending.complete(out, failure);
+      try {
+        ctx.executor().execute(() -> {
+          if (removed) {
+            pending.discard();
+          } else {
+            drainPendingWrites(ctx);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        pending.discard();
+      }
+    });
+  }
+
+  private void drainPendingWrites(ChannelHandlerContext ctx) {
+    boolean wrote = false;
+    PendingWrite head;
+    while ((head = pendingWrites.peek()) != null) {
+      if (head.offloaded) {
+        if (!head.done) {
+          break;
+        }
+        pendingWrites.poll();
+        head.writeTo(ctx);
+      } else if (shouldOffload(head.msg) && offload(ctx, head.markOffloaded())) {
+        break;
+      } else {
+        pendingWrites.poll();
+        try {
+          writeNow(ctx, head.msg, head.promise);
+        } catch (Exception e) {
+          ctx.fireExceptionCaught(e);
+        }
+      }
+      wrote = true;
+    }
+    if (wrote && flushPending) {
+      flushPending = !pendingWrites.isEmpty();
+      ctx.flush();
+    }
+  }
+
+  private void discardPendingWrites() {
+    PendingWrite pending;
+    while ((pending = pendingWrites.poll()) != null) {
+      // Packets still being compressed are discarded once the worker hands them back.
+      if (!pending.offloaded || pending.done) {
+        pending.discard();
+      }
+    }
+  }
+
+  private void writePreCompressed(ChannelHandlerContext ctx, CompressedPacket msg,
+      ChannelPromise promise) throws Exception {
+    try {
+      if (msg.getUncompressedSize() < threshold) {
+        // The other end would consider this packet badly compressed, so take the long way around.
+        super.write(ctx, inflate(ctx, msg), promise);
+        return;
+      }
+
+      ByteBuf data = msg.content();
+      int length = data.readableBytes();
+      int finalBufferSize = length + ProtocolUtils.varIntBytes(length);
+      ByteBuf out = IS_JAVA_CIPHER
+          ? ctx.alloc().heapBuffer(finalBufferSize)
+          : ctx.alloc().directBuffer(finalBufferSize);
+      ProtocolUtils.writeVarInt(out, length);
+      out.writeBytes(data, data.readerIndex(), length);
+      ctx.write(out, promise);
+    } finally {
+      msg.release();
+    }
+  }
+
+  private ByteBuf inflate(ChannelHandlerContext ctx, CompressedPacket msg)
+      throws DataFormatException {
+    ByteBuf data = msg.content().duplicate();
+    ProtocolUtils.readVarInt(data);
+    ByteBuf compatibleIn = MoreByteBufUtils.ensureCompatible(ctx.alloc(), compressor, data);
+    ByteBuf uncompressed = MoreByteBufUtils.preferredBuffer(ctx.alloc(), compressor,
+        msg.getUncompressedSize());
+    try {
+      compressor.inflate(compatibleIn, uncompressed, msg.getUncompressedSize());
+      return uncompressed;
+    } catch (Exception e) {
+      uncompressed.release();
+      throw e;
+    } finally {
+      compatibleIn.release();
+    }
+  }
+
   @Override
   protected void encode(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out) throws Exception {
     int uncompressed = msg.readableBytes();
@@ -55,11 +239,29 @@ public class MinecraftCompressorAndLengthEncoder extends MessageToByteEncoder<By
 
   private void handleCompressed(ChannelHandlerContext ctx, ByteBuf msg, ByteBuf out)
       throws DataFormatException {
+    writeCompressed(ctx.alloc(), compressor, msg, out);
+  }
+
+  private static ByteBuf compressFrame(ByteBufAllocator alloc, VelocityCompressor compressor,
+      ByteBuf msg) throws DataFormatException {
+    ByteBuf out = MoreByteBufUtils.preferredBuffer(alloc, compressor,
+        compressedBufferSize(msg.readableBytes()));
+    try {
+      writeCompressed(alloc, compressor, msg, out);
+      return out;
+    } catch (Exception e) {
+      out.release();
+      throw e;
+    }
+  }
+
+  private static void writeCompressed(ByteBufAllocator alloc, VelocityCompressor compressor,
+      ByteBuf msg, ByteBuf out) throws DataFormatException {
     int uncompressed = msg.readableBytes();
 
     ProtocolUtils.write21BitVarInt(out, 0); // Dummy packet length
     ProtocolUtils.writeVarInt(out, uncompressed);
-    ByteBuf compatibleIn = MoreByteBufUtils.ensureCompatible(ctx.alloc(), compressor, msg);
+    ByteBuf compatibleIn = MoreByteBufUtils.ensureCompatible(alloc, compressor, msg);
 
     int startCompressed = out.writerIndex();
     try {
@@ -91,17 +293,75 @@ public class MinecraftCompressorAndLengthEncoder extends MessageToByteEncoder<By
           : ctx.alloc().directBuffer(finalBufferSize);
     }
 
+    return MoreByteBufUtils.preferredBuffer(ctx.alloc(), compressor,
+        compressedBufferSize(uncompressed));
+  }
+
+  private static int compressedBufferSize(int uncompressed) {
     // (maximum data length after compression) + packet length varint + uncompressed data varint
-    int initialBufferSize = (uncompressed - 1) + 3 + ProtocolUtils.varIntBytes(uncompressed);
-    return MoreByteBufUtils.preferredBuffer(ctx.alloc(), compressor, initialBufferSize);
+    return (uncompressed - 1) + 3 + ProtocolUtils.varIntBytes(uncompressed);
   }
 
   @Override
   public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+    removed = true;
+    discardPendingWrites();
     compressor.close();
   }
 
   public void setThreshold(int threshold) {
     this.threshold = threshold;
   }
+
+  /**
+   * A write held back to preserve ordering behind a packet being compressed off the event loop.
+   */
+  private static final class PendingWrite {
+
+    private final Object msg;
+    private final ChannelPromise promise;
+    private boolean offloaded;
+    private volatile boolean done;
+    private boolean discarded;
+    private @Nullable ByteBuf compressed;
+    private @Nullable Throwable failure;
+
+    private PendingWrite(Object msg, ChannelPromise promise) {
+      this.msg = msg;
+      this.promise = promise;
+    }
+
+    private PendingWrite markOffloaded() {
+      this.offloaded = true;
+      return this;
+    }
+
+    private void complete(@Nullable ByteBuf compressed, @Nullable Throwable failure) {
+      this.compressed = compressed;
+      this.failure = failure;
+      ReferenceCountUtil.release(msg);
+      this.done = true;
+    }
+
+    private void writeTo(ChannelHandlerContext ctx) {
+      if (compressed != null) {
+        ctx.write(compressed, promise);
+      } else {
+        promise.tryFailure(new EncoderException(failure));
+      }
+    }
+
+    private void discard() {
+      if (discarded) {
+        return;
+      }
+      discarded = true;
+      if (done) {
+        ReferenceCountUtil.release(compressed);
+      } else {
+        ReferenceCountUtil.release(msg);
+      }
+      promise.tryFailure(new EncoderException("Channel pipeline changed before write"));
+    }
+  }
 }
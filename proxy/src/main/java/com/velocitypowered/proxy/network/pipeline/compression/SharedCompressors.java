@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.compression;
+
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.natives.util.BufferPreference;
+import com.velocitypowered.natives.util.Natives;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.concurrent.FastThreadLocal;
+import it.unimi.dsi.fastutil.ints.Int2ObjectArrayMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import java.util.zip.DataFormatException;
+
+/**
+ * Hands out compressors shared by every connection running on the same thread. Compressors keep
+ * no state between calls and a connection only ever compresses on its own event loop, so one
+ * compressor per thread and compression level can serve all of them, instead of holding on to a
+ * pair of native contexts for every connection.
+ */
+public final class SharedCompressors {
+
+  private static final FastThreadLocal<Int2ObjectMap<SharedCompressor>> COMPRESSORS =
+      new FastThreadLocal<>() {
+        @Override
+        protected Int2ObjectMap<SharedCompressor> initialValue() {
+          return new Int2ObjectArrayMap<>();
+        }
+
+        @Override
+        protected void onRemoval(Int2ObjectMap<SharedCompressor> compressors) {
+          for (SharedCompressor compressor : compressors.values()) {
+            compressor.delegate.close();
+          }
+        }
+      };
+
+  private SharedCompressors() {
+    throw new AssertionError();
+  }
+
+  /**
+   * Returns the compressor for the given compression level owned by the calling thread. The
+   * returned compressor must only be used from the calling thread, and closing it does nothing.
+   *
+   * @param level the compression level
+   * @return the compressor for this thread
+   */
+  public static VelocityCompressor get(int level) {
+    Int2ObjectMap<SharedCompressor> compressors = COMPRESSORS.get();
+    SharedCompressor compressor = compressors.get(level);
+    if (compressor == null) {
+      compressor = new SharedCompressor(Natives.compress.get().create(level));
+      compressors.put(level, compressor);
+    }
+    return compressor;
+  }
+
+  /**
+   * Frees the compressors owned by the calling thread. Netty event loop threads do this on their
+   * own when they terminate.
+   */
+  public static void release() {
+    COMPRESSORS.remove();
+  }
+
+  private static final class SharedCompressor implements VelocityCompressor {
+
+    private final VelocityCompressor delegate;
+
+    private SharedCompressor(VelocityCompressor delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void inflate(ByteBuf source, ByteBuf destination, int uncompressedSize)
+        throws DataFormatException {
+      delegate.inflate(source, destination, uncompressedSize);
+    }
+
+    @Override
+    public void deflate(ByteBuf source, ByteBuf destination) throws DataFormatException {
+      delegate.deflate(source, destination);
+    }
+
+    @Override
+    public void close() {
+      // Shared with other connections on this thread, so it lives as long as the thread does.
+    }
+
+    @Override
+    public BufferPreference preferredBufferType() {
+      return delegate.preferredBufferType();
+    }
+  }
+}
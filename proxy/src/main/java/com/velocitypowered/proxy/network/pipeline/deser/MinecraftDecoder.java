@@ -139,6 +139,17 @@ public class MinecraftDecoder extends ChannelInboundHandlerAdapter {
         + " ID " + Integer.toHexString(packetId);
   }
 
+  /**
+   * Determines whether a packet with the specified {@code packetId} would be decoded in the
+   * current state, as opposed to being passed along as-is.
+   *
+   * @param packetId the packet ID
+   * @return whether the packet would be decoded
+   */
+  public boolean isDecoded(int packetId) {
+    return this.registry.containsPacketId(packetId);
+  }
+
   public void setProtocolVersion(ProtocolVersion protocolVersion) {
     this.registry = state.getProtocolRegistry(direction, protocolVersion);
   }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.encryption;
+
+import com.google.common.base.Preconditions;
+import com.velocitypowered.natives.encryption.VelocityCipher;
+import com.velocitypowered.natives.util.MoreByteBufUtils;
+import com.velocitypowered.proxy.network.pipeline.framing.MinecraftVarintFrameDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * Decrypts and frames Minecraft packets in a single handler. Incoming bytes are decrypted in place
+ * as they are appended to the cumulation buffer, and frames are then sliced straight out of it, so
+ * encrypted connections don't need a separate {@link MinecraftCipherDecoder} and the intermediate
+ * buffer it produces.
+ */
+public class MinecraftCipherFrameDecoder extends MinecraftVarintFrameDecoder {
+
+  private final VelocityCipher cipher;
+
+  /**
+   * Creates a new decoder that decrypts with the specified {@code cipher}.
+   *
+   * @param cipher the cipher to decrypt incoming data with
+   */
+  public MinecraftCipherFrameDecoder(VelocityCipher cipher) {
+    this.cipher = Preconditions.checkNotNull(cipher, "cipher");
+    setCumulator(this::decryptAndCumulate);
+  }
+
+  private ByteBuf decryptAndCumulate(ByteBufAllocator alloc, ByteBuf cumulation, ByteBuf in) {
+    int newBytes = in.readableBytes();
+    if (!cumulation.isReadable()) {
+      // Nothing is buffered, so if the incoming buffer is usable by the cipher we can decrypt it
+      // in place and use it as the cumulation directly.
+      ByteBuf compatible;
+      try {
+        compatible = MoreByteBufUtils.ensureCompatible(alloc, cipher, in);
+      } finally {
+        in.release();
+      }
+      try {
+        cipher.process(compatible);
+      } catch (RuntimeException e) {
+        compatible.release();
+        throw e;
+      }
+      cumulation.release();
+      return compatible;
+    }
+
+    try {
+      if (newBytes > cumulation.maxWritableBytes()
+          || (newBytes > cumulation.maxFastWritableBytes() && cumulation.refCnt() > 1)
+          || cumulation.isReadOnly()) {
+        // Frames sliced out of the cumulation are still referenced further down the pipeline, or
+        // the buffer can't grow in place, so move what we have into a new buffer.
+        cumulation = expandCumulation(alloc, cumulation, newBytes);
+      }
+      int start = cumulation.writerIndex();
+      cumulation.writeBytes(in, in.readerIndex(), newBytes);
+      in.readerIndex(in.writerIndex());
+      cipher.process(cumulation.slice(start, newBytes));
+      return cumulation;
+    } finally {
+      in.release();
+    }
+  }
+
+  private ByteBuf expandCumulation(ByteBufAllocator alloc, ByteBuf oldCumulation, int newBytes) {
+    int oldBytes = oldCumulation.readableBytes();
+    int required = oldBytes + newBytes;
+    ByteBuf newCumulation = MoreByteBufUtils.preferredBuffer(alloc, cipher,
+        alloc.calculateNewCapacity(required, Integer.MAX_VALUE));
+    ByteBuf toRelease = newCumulation;
+    try {
+      newCumulation.writeBytes(oldCumulation, oldCumulation.readerIndex(), oldBytes);
+      toRelease = oldCumulation;
+      return newCumulation;
+    } finally {
+      toRelease.release();
+    }
+  }
+
+  @Override
+  protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+    cipher.close();
+  }
+}
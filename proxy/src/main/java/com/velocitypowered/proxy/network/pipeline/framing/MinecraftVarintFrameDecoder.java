@@ -17,7 +17,6 @@
 
 package com.velocitypowered.proxy.network.pipeline.framing;
 
-import com.velocitypowered.proxy.network.pipeline.framing.VarintByteDecoder.DecodeResult;
 import com.velocitypowered.proxy.util.except.QuietDecoderException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
@@ -29,11 +28,12 @@ import java.util.List;
  */
 public class MinecraftVarintFrameDecoder extends ByteToMessageDecoder {
 
-  private static final QuietDecoderException BAD_LENGTH_CACHED =
-      new QuietDecoderException("Bad packet length");
   private static final QuietDecoderException VARINT_BIG_CACHED =
       new QuietDecoderException("VarInt too big");
 
+  // The high (continuation) bit of each of the three bytes a 21-bit VarInt may span.
+  private static final int CONTINUATION_BITS = 0x808080;
+
   @Override
   protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
     if (!ctx.channel().isActive()) {
@@ -41,41 +41,51 @@ public class MinecraftVarintFrameDecoder extends ByteToMessageDecoder {
       return;
     }
 
-    final VarintByteDecoder reader = new VarintByteDecoder();
+    // Pull out every complete frame we have, so we don't need to be called again for each one.
+    while (in.isReadable()) {
+      int readerIndex = in.readerIndex();
+      int readable = in.readableBytes();
 
-    int varintEnd = in.forEachByte(reader);
-    if (varintEnd == -1) {
-      // We tried to go beyond the end of the buffer. This is probably a good sign that the
-      // buffer was too short to hold a proper varint.
-      if (reader.getResult() == DecodeResult.RUN_OF_ZEROES) {
-        // Special case where the entire packet is just a run of zeroes. We ignore them all.
-        in.clear();
+      // Read up to three bytes at once. If we don't have that many, we pretend the missing bytes
+      // have their continuation bit set, so they can never terminate the VarInt.
+      int word;
+      if (readable >= 3) {
+        word = in.getMediumLE(readerIndex);
+      } else if (readable == 2) {
+        word = in.getUnsignedShortLE(readerIndex) | 0x800000;
+      } else {
+        word = in.getUnsignedByte(readerIndex) | 0x808000;
       }
-      return;
-    }
 
-    if (reader.getResult() == DecodeResult.RUN_OF_ZEROES) {
-      // this will return to the point where the next varint starts
-      in.readerIndex(varintEnd);
-    } else if (reader.getResult() == DecodeResult.SUCCESS) {
-      int readVarint = reader.getReadVarint();
-      int bytesRead = reader.getBytesRead();
-      if (readVarint < 0) {
-        in.clear();
-        throw BAD_LENGTH_CACHED;
-      } else if (readVarint == 0) {
-        // skip over the empty packet(s) and ignore it
-        in.readerIndex(varintEnd + 1);
-      } else {
-        int minimumRead = bytesRead + readVarint;
-        if (in.isReadable(minimumRead)) {
-          out.add(in.retainedSlice(varintEnd + 1, readVarint));
-          in.skipBytes(minimumRead);
+      int terminators = ~word & CONTINUATION_BITS;
+      if (terminators == 0) {
+        if (readable >= 3) {
+          in.clear();
+          throw VARINT_BIG_CACHED;
         }
+        // The buffer is too short to hold a proper VarInt.
+        return;
       }
-    } else if (reader.getResult() == DecodeResult.TOO_BIG) {
-      in.clear();
-      throw VARINT_BIG_CACHED;
+
+      // The lowest clear continuation bit is the last byte of the VarInt: bit 7, 15 or 23.
+      int varintBytes = (Integer.numberOfTrailingZeros(terminators) + 1) >> 3;
+      word &= (1 << (varintBytes << 3)) - 1;
+      int length = (word & 0x7F) | ((word >> 1) & 0x3F80) | ((word >> 2) & 0x1FC000);
+
+      if (length == 0) {
+        // Skip over empty packets (and runs of zeroes) and ignore them.
+        in.skipBytes(varintBytes);
+        continue;
+      }
+
+      int frameLength = varintBytes + length;
+      if (readable < frameLength) {
+        // Wait for the rest of the packet to arrive.
+        return;
+      }
+
+      out.add(in.retainedSlice(readerIndex + varintBytes, length));
+      in.skipBytes(frameLength);
     }
   }
 }
@@ -23,6 +23,7 @@ import static com.velocitypowered.proxy.network.Connections.LEGACY_PING_DECODER;
 import static com.velocitypowered.proxy.network.Connections.LEGACY_PING_ENCODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_DECODER;
 import static com.velocitypowered.proxy.network.Connections.MINECRAFT_ENCODER;
+import static com.velocitypowered.proxy.network.Connections.OUTBOUND_PRIORITY;
 import static com.velocitypowered.proxy.network.Connections.READ_TIMEOUT;
 
 import com.velocitypowered.proxy.VelocityServer;
@@ -35,6 +36,7 @@ import com.velocitypowered.proxy.network.pipeline.deser.MinecraftDecoder;
 import com.velocitypowered.proxy.network.pipeline.deser.MinecraftEncoder;
 import com.velocitypowered.proxy.network.pipeline.framing.MinecraftVarintFrameDecoder;
 import com.velocitypowered.proxy.network.pipeline.framing.MinecraftVarintLengthEncoder;
+import com.velocitypowered.proxy.network.pipeline.util.OutboundPriorityHandler;
 import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
 import com.velocitypowered.proxy.network.protocol.StateRegistry;
 import io.netty.channel.Channel;
@@ -68,6 +70,10 @@ public class ServerChannelInitializer extends ChannelInitializer<Channel> {
         .addLast(MINECRAFT_DECODER, new MinecraftDecoder(ProtocolUtils.Direction.SERVERBOUND))
         .addLast(MINECRAFT_ENCODER, new MinecraftEncoder(ProtocolUtils.Direction.CLIENTBOUND));
 
+    if (this.server.configuration().isOutboundPriorityLane()) {
+      ch.pipeline().addLast(OUTBOUND_PRIORITY, new OutboundPriorityHandler());
+    }
+
     final MinecraftConnection connection = new MinecraftConnection(ch, this.server);
     connection.setActiveSessionHandler(StateRegistry.HANDSHAKE,
         new HandshakeSessionHandler(connection, this.server));
@@ -30,12 +30,18 @@ import com.velocitypowered.api.plugin.PluginDescription;
 import com.velocitypowered.api.proxy.player.Player;
 import com.velocitypowered.api.proxy.server.QueryResponse;
 import com.velocitypowered.proxy.VelocityServer;
+import com.velocitypowered.proxy.util.ratelimit.Ratelimiter;
+import com.velocitypowered.proxy.util.ratelimit.Ratelimiters;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.socket.DatagramPacket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.ArrayList;
@@ -48,6 +54,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
 import org.apache.logging.log4j.LogManager;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Implements the GameSpy protocol for Velocity.
@@ -63,6 +70,16 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
   private static final byte[] QUERY_RESPONSE_FULL_PADDING2 = new byte[]{0x01, 0x70, 0x6C, 0x61,
       0x79, 0x65, 0x72, 0x5F, 0x00, 0x00};
 
+  // Upper bound on outstanding challenge tokens (and on addresses tracked by the rate limiter)
+  private static final int MAX_SESSIONS = Integer.getInteger("velocity.query-max-sessions", 4096);
+  // Packets accepted per source address per second; a query is a handshake followed by a stat
+  private static final int RATE_LIMIT = Integer.getInteger("velocity.query-rate-limit", 10);
+  // How long an encoded stat response may be reused before it is rebuilt
+  private static final long RESPONSE_CACHE_TTL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+      Long.getLong("velocity.query-response-cache-ttl", 1000));
+  // Challenge tokens drawn from the SecureRandom at once
+  private static final int CHALLENGE_TOKEN_BATCH = 64;
+
   // Contents to add into basic stat response. See ResponseWriter class below
   private static final ImmutableSet<String> QUERY_BASIC_RESPONSE_CONTENTS = ImmutableSet.of(
       "hostname",
@@ -76,15 +93,45 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
 
   private final Cache<InetAddress, Integer> sessions = Caffeine.newBuilder()
       .expireAfterWrite(30, TimeUnit.SECONDS)
+      .maximumSize(MAX_SESSIONS)
       .build();
+  private final Ratelimiter ratelimiter = Ratelimiters.createWithPermits(RATE_LIMIT, 1000,
+      MAX_SESSIONS);
   private final SecureRandom random;
   private final VelocityServer server;
 
+  // The fields below are only touched from the channel's event loop.
+  private IntBuffer challengeTokens = IntBuffer.allocate(0);
+  private @Nullable QueryResponse initialResponse;
+  private long initialResponseCreatedAt;
+  private @Nullable CachedBody basicBody;
+  private @Nullable CachedBody fullBody;
+
   public GameSpyQueryHandler(VelocityServer server) {
     this.server = server;
     this.random = new SecureRandom();
   }
 
+  private int nextChallengeToken() {
+    if (!challengeTokens.hasRemaining()) {
+      byte[] bytes = new byte[CHALLENGE_TOKEN_BATCH * Integer.BYTES];
+      random.nextBytes(bytes);
+      challengeTokens = ByteBuffer.wrap(bytes).asIntBuffer();
+    }
+    return challengeTokens.get();
+  }
+
+  private QueryResponse initialResponse(long now) {
+    // QueryResponse is immutable, so the player list only has to be collected once per TTL
+    QueryResponse response = initialResponse;
+    if (response == null || now - initialResponseCreatedAt >= RESPONSE_CACHE_TTL_NANOS) {
+      response = createInitialResponse();
+      initialResponse = response;
+      initialResponseCreatedAt = now;
+    }
+    return response;
+  }
+
   private QueryResponse createInitialResponse() {
     return QueryResponse.builder()
         .hostname(
@@ -110,11 +157,17 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
     InetAddress senderAddress = msg.sender().getAddress();
 
     // Verify query packet magic
-    if (queryMessage.readUnsignedByte() != QUERY_MAGIC_FIRST
+    if (queryMessage.readableBytes() < 7
+        || queryMessage.readUnsignedByte() != QUERY_MAGIC_FIRST
         || queryMessage.readUnsignedByte() != QUERY_MAGIC_SECOND) {
       return;
     }
 
+    // Drop floods from a single source before doing any work for them
+    if (!ratelimiter.attempt(senderAddress)) {
+      return;
+    }
+
     // Read packet header
     short type = queryMessage.readUnsignedByte();
     int sessionId = queryMessage.readInt();
@@ -122,7 +175,7 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
     switch (type) {
       case QUERY_TYPE_HANDSHAKE: {
         // Generate new challenge token and put it into the sessions cache
-        int challengeToken = random.nextInt();
+        int challengeToken = nextChallengeToken();
         sessions.put(senderAddress, challengeToken);
 
         // Respond with challenge token
@@ -138,6 +191,9 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
 
       case QUERY_TYPE_STAT: {
         // Check if query was done with session previously generated using a handshake packet
+        if (queryMessage.readableBytes() < 4) {
+          return;
+        }
         int challengeToken = queryMessage.readInt();
         Integer session = sessions.getIfPresent(senderAddress);
         if (session == null || session != challengeToken) {
@@ -149,42 +205,36 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
           return;
         }
 
-        // Build initial query response
-        QueryResponse response = createInitialResponse();
         boolean isBasic = !queryMessage.isReadable();
+        long now = System.nanoTime();
+
+        // Nobody can alter the response, so an encoded copy can be reused as-is
+        boolean cacheable = !server.eventManager().hasSubscribers(ProxyQueryEvent.class);
+        if (cacheable) {
+          CachedBody cached = isBasic ? basicBody : fullBody;
+          if (cached != null && now - cached.createdAt < RESPONSE_CACHE_TTL_NANOS) {
+            writeStatResponse(ctx, msg.sender(), sessionId, cached.body);
+            return;
+          }
+        }
+
+        // Build initial query response
+        QueryResponse response = initialResponse(now);
 
         // Call event and write response
         server.eventManager()
             .fire(new ProxyQueryEvent(isBasic ? BASIC : FULL, senderAddress, response))
             .thenAcceptAsync((event) -> {
-              // Packet header
-              ByteBuf queryResponse = ctx.alloc().buffer();
-              queryResponse.writeByte(QUERY_TYPE_STAT);
-              queryResponse.writeInt(sessionId);
-
-              // Start writing the response
-              ResponseWriter responseWriter = new ResponseWriter(queryResponse, isBasic);
-              responseWriter.write("hostname", event.response().hostname());
-              responseWriter.write("gametype", "SMP");
-
-              responseWriter.write("game_id", "MINECRAFT");
-              responseWriter.write("version", event.response().gameVersion());
-              responseWriter.writePlugins(event.response().proxyVersion(),
-                  event.response().plugins());
-
-              responseWriter.write("map", event.response().map());
-              responseWriter.write("numplayers", event.response().currentPlayers());
-              responseWriter.write("maxplayers", event.response().maxPlayers());
-              responseWriter.write("hostport", event.response().proxyPort());
-              responseWriter.write("hostip", event.response().proxyHost());
-
-              if (!responseWriter.isBasic) {
-                responseWriter.writePlayers(event.response().players());
+              byte[] body = encodeStatBody(event.response(), isBasic);
+              if (cacheable) {
+                CachedBody cached = new CachedBody(body, now);
+                if (isBasic) {
+                  basicBody = cached;
+                } else {
+                  fullBody = cached;
+                }
               }
-
-              // Send the response
-              DatagramPacket responsePacket = new DatagramPacket(queryResponse, msg.sender());
-              ctx.writeAndFlush(responsePacket, ctx.voidPromise());
+              writeStatResponse(ctx, msg.sender(), sessionId, body);
             }, ctx.channel().eventLoop())
             .exceptionally((ex) -> {
               LogManager.getLogger(getClass()).error(
@@ -198,6 +248,37 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
     }
   }
 
+  private static void writeStatResponse(ChannelHandlerContext ctx, InetSocketAddress recipient,
+      int sessionId, byte[] body) {
+    ByteBuf queryResponse = ctx.alloc().buffer(5 + body.length);
+    queryResponse.writeByte(QUERY_TYPE_STAT);
+    queryResponse.writeInt(sessionId);
+    queryResponse.writeBytes(body);
+    ctx.writeAndFlush(new DatagramPacket(queryResponse, recipient), ctx.voidPromise());
+  }
+
+  private static byte[] encodeStatBody(QueryResponse response, boolean isBasic) {
+    ByteBuf body = Unpooled.buffer();
+    ResponseWriter responseWriter = new ResponseWriter(body, isBasic);
+    responseWriter.write("hostname", response.hostname());
+    responseWriter.write("gametype", "SMP");
+
+    responseWriter.write("game_id", "MINECRAFT");
+    responseWriter.write("version", response.gameVersion());
+    responseWriter.writePlugins(response.proxyVersion(), response.plugins());
+
+    responseWriter.write("map", response.map());
+    responseWriter.write("numplayers", response.currentPlayers());
+    responseWriter.write("maxplayers", response.maxPlayers());
+    responseWriter.write("hostport", response.proxyPort());
+    responseWriter.write("hostip", response.proxyHost());
+
+    if (!responseWriter.isBasic) {
+      responseWriter.writePlayers(response.players());
+    }
+    return ByteBufUtil.getBytes(body);
+  }
+
   private static void writeString(ByteBuf buf, String string) {
     buf.writeCharSequence(string, StandardCharsets.ISO_8859_1);
     buf.writeByte(0x00);
@@ -213,6 +294,17 @@ public class GameSpyQueryHandler extends SimpleChannelInboundHandler<DatagramPac
     return result;
   }
 
+  private static final class CachedBody {
+
+    private final byte[] body;
+    private final long createdAt;
+
+    CachedBody(byte[] body, long createdAt) {
+      this.body = body;
+      this.createdAt = createdAt;
+    }
+  }
+
   private static class ResponseWriter {
 
     private final ByteBuf buf;
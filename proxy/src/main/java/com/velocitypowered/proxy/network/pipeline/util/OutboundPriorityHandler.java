@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.util;
+
+import com.velocitypowered.proxy.network.protocol.packet.KeepAlive;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.ReferenceCountUtil;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Lets keep-alives overtake bulk traffic while a connection is congested.
+ *
+ * <p>Once the channel stops being writable, every write other than a keep-alive is held back in
+ * this handler instead of joining the channel's outbound buffer, while keep-alives continue
+ * straight through. The held writes are released in their original order as soon as the channel
+ * becomes writable again. Only keep-alives may overtake, since the client tolerates them between
+ * any two packets of the same state; reordering anything else, such as chat ahead of a respawn,
+ * would be visible to the player.
+ *
+ * <p>This handler sits in front of the packet encoder, so held writes are still unencoded packets.
+ * {@link #releaseHeldWrites()} must be called before the protocol state, protocol version,
+ * compression or encryption of the connection changes, so they are encoded as they would have
+ * been when they were written.
+ *
+ * <p>Held writes deliberately don't count towards the channel's pending bytes. If they did, a
+ * large enough backlog could keep the channel unwritable even after its outbound buffer has fully
+ * drained, and nothing would ever release it. Backpressure to the backend server still works as
+ * before, since the channel stays unwritable until the outbound buffer itself drains.
+ */
+public class OutboundPriorityHandler extends ChannelDuplexHandler {
+
+  private final Queue<HeldWrite> bulk = new ArrayDeque<>();
+  private @Nullable ChannelHandlerContext ctx;
+
+  @Override
+  public void handlerAdded(ChannelHandlerContext ctx) {
+    this.ctx = ctx;
+  }
+
+  @Override
+  public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+    if (isPriority(msg)) {
+      ctx.write(msg, promise);
+      return;
+    }
+
+    // Keep bulk traffic in order: once we hold anything back, everything after it waits too.
+    if (!bulk.isEmpty() || !ctx.channel().isWritable()) {
+      bulk.add(new HeldWrite(msg, promise));
+      return;
+    }
+    ctx.write(msg, promise);
+  }
+
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+    if (ctx.channel().isWritable() && !bulk.isEmpty()) {
+      // Only release as much as the channel will take, so priority packets written while we
+      // are still congested can keep overtaking the rest.
+      HeldWrite held;
+      while (ctx.channel().isWritable() && (held = bulk.poll()) != null) {
+        ctx.write(held.msg, held.promise);
+      }
+      ctx.flush();
+    }
+    ctx.fireChannelWritabilityChanged();
+  }
+
+  /**
+   * Writes out everything held back, whether or not the channel is writable. Must be called on the
+   * channel's event loop.
+   */
+  public void releaseHeldWrites() {
+    final ChannelHandlerContext ctx = this.ctx;
+    if (ctx == null || bulk.isEmpty()) {
+      return;
+    }
+    HeldWrite held;
+    while ((held = bulk.poll()) != null) {
+      ctx.write(held.msg, held.promise);
+    }
+    ctx.flush();
+  }
+
+  @Override
+  public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+    failHeldWrites();
+    ctx.fireChannelInactive();
+  }
+
+  @Override
+  public void handlerRemoved(ChannelHandlerContext ctx) {
+    if (ctx.channel().isActive()) {
+      releaseHeldWrites();
+    } else {
+      failHeldWrites();
+    }
+    this.ctx = null;
+  }
+
+  private void failHeldWrites() {
+    HeldWrite held;
+    while ((held = bulk.poll()) != null) {
+      ReferenceCountUtil.release(held.msg);
+      if (!held.promise.isVoid()) {
+        held.promise.tryFailure(new ClosedChannelException());
+      }
+    }
+  }
+
+  /**
+   * Returns whether the specified outbound message should bypass held bulk traffic.
+   *
+   * @param msg the message being written
+   * @return whether the message is a keep-alive
+   */
+  public static boolean isPriority(Object msg) {
+    return msg instanceof KeepAlive;
+  }
+
+  private static final class HeldWrite {
+
+    private final Object msg;
+    private final ChannelPromise promise;
+
+    private HeldWrite(Object msg, ChannelPromise promise) {
+      this.msg = msg;
+      this.promise = promise;
+    }
+  }
+}
@@ -93,15 +93,15 @@ import com.velocitypowered.proxy.network.protocol.packet.title.TitleSubtitlePack
 import com.velocitypowered.proxy.network.protocol.packet.title.TitleTextPacket;
 import com.velocitypowered.proxy.network.protocol.packet.title.TitleTimesPacket;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import io.netty.util.collection.IntObjectHashMap;
-import io.netty.util.collection.IntObjectMap;
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
-import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -553,6 +553,13 @@ public enum StateRegistry {
   protected final PacketRegistry clientbound = new PacketRegistry(Direction.CLIENTBOUND, this);
   protected final PacketRegistry serverbound = new PacketRegistry(Direction.SERVERBOUND, this);
 
+  static {
+    for (StateRegistry state : values()) {
+      state.clientbound.compact();
+      state.serverbound.compact();
+    }
+  }
+
   public StateRegistry.PacketRegistry.ProtocolRegistry getProtocolRegistry(Direction direction,
       ProtocolVersion version) {
     return (direction == Direction.SERVERBOUND ? serverbound : clientbound).getProtocolRegistry(
@@ -564,10 +571,27 @@ public enum StateRegistry {
    */
   public static class PacketRegistry {
 
+    /**
+     * Per-class packet IDs, indexed by {@link ProtocolRegistry#index}. Every registry shares the
+     * same per-class table, so resolving the ID of an outgoing packet is a single array load
+     * instead of a hash lookup in a map owned by each protocol version.
+     */
+    private static final ClassValue<PacketIds> PACKET_IDS = new ClassValue<>() {
+      @Override
+      protected PacketIds computeValue(Class<?> type) {
+        return new PacketIds();
+      }
+    };
+    private static final AtomicInteger NEXT_REGISTRY_INDEX = new AtomicInteger();
+    @SuppressWarnings("unchecked")
+    private static final Supplier<? extends MinecraftPacket>[] NO_SUPPLIERS = new Supplier[0];
+
     private final Direction direction;
     private final StateRegistry registry;
     private final Map<ProtocolVersion, ProtocolRegistry> versions;
+    private final Set<Class<? extends MinecraftPacket>> packetClasses = new HashSet<>();
     private boolean fallback = true;
+    private boolean compacted;
 
     PacketRegistry(Direction direction, StateRegistry registry) {
       this.direction = direction;
@@ -599,6 +623,10 @@ public enum StateRegistry {
       if (mappings.length == 0) {
         throw new IllegalArgumentException("At least one mapping must be provided.");
       }
+      if (compacted) {
+        throw new IllegalStateException("Cannot register " + clazz.getSimpleName()
+            + " after the registry has been compacted");
+      }
 
       for (int i = 0; i < mappings.length; i++) {
         PacketMapping current = mappings[i];
@@ -635,7 +663,7 @@ public enum StateRegistry {
                 "Unknown protocol version " + current.protocolVersion);
           }
 
-          if (registry.packetIdToSupplier.containsKey(current.id)) {
+          if (registry.containsPacketId(current.id)) {
             throw new IllegalArgumentException(
                 "Can not register class "
                     + clazz.getSimpleName()
@@ -646,17 +674,34 @@ public enum StateRegistry {
                     + " because another packet is already registered");
           }
 
-          if (registry.packetClassToId.containsKey(clazz)) {
+          if (registry.packetId(clazz) != Integer.MIN_VALUE) {
             throw new IllegalArgumentException(
                 clazz.getSimpleName() + " is already registered for version " + registry.version);
           }
 
           if (!current.encodeOnly) {
-            registry.packetIdToSupplier.put(current.id, packetSupplier);
+            registry.putSupplier(current.id, packetSupplier);
           }
-          registry.packetClassToId.put(clazz, current.id);
+          PACKET_IDS.get(clazz).put(registry.index, current.id);
         }
       }
+      packetClasses.add(clazz);
+    }
+
+    /**
+     * Lets consecutive protocol versions with identical packet mappings share a single packet
+     * table. No further packets may be registered once the registry has been compacted.
+     */
+    void compact() {
+      ProtocolRegistry previous = null;
+      for (ProtocolRegistry current : versions.values()) {
+        if (previous != null && previous.hasSameMappings(current)) {
+          current.packetIdToSupplier = previous.packetIdToSupplier;
+          current.index = previous.index;
+        }
+        previous = current;
+      }
+      compacted = true;
     }
 
     /**
@@ -665,14 +710,41 @@ public enum StateRegistry {
     public class ProtocolRegistry {
 
       public final ProtocolVersion version;
-      final IntObjectMap<Supplier<? extends MinecraftPacket>> packetIdToSupplier =
-          new IntObjectHashMap<>(16, 0.5f);
-      final Object2IntMap<Class<? extends MinecraftPacket>> packetClassToId =
-          new Object2IntOpenHashMap<>(16, 0.5f);
+      Supplier<? extends MinecraftPacket>[] packetIdToSupplier = NO_SUPPLIERS;
+      int index = NEXT_REGISTRY_INDEX.getAndIncrement();
 
       ProtocolRegistry(final ProtocolVersion version) {
         this.version = version;
-        this.packetClassToId.defaultReturnValue(Integer.MIN_VALUE);
+      }
+
+      private void putSupplier(final int id, final Supplier<? extends MinecraftPacket> supplier) {
+        if (id >= packetIdToSupplier.length) {
+          packetIdToSupplier = Arrays.copyOf(packetIdToSupplier, id + 1);
+        }
+        packetIdToSupplier[id] = supplier;
+      }
+
+      private int packetId(final Class<?> clazz) {
+        return PACKET_IDS.get(clazz).get(index);
+      }
+
+      private boolean hasSameMappings(final ProtocolRegistry other) {
+        if (this.index == other.index) {
+          return true;
+        }
+        final Supplier<? extends MinecraftPacket>[] ours = this.packetIdToSupplier;
+        final Supplier<? extends MinecraftPacket>[] theirs = other.packetIdToSupplier;
+        for (int id = 0; id < Math.max(ours.length, theirs.length); id++) {
+          if ((id < ours.length ? ours[id] : null) != (id < theirs.length ? theirs[id] : null)) {
+            return false;
+          }
+        }
+        for (Class<? extends MinecraftPacket> clazz : packetClasses) {
+          if (this.packetId(clazz) != other.packetId(clazz)) {
+            return false;
+          }
+        }
+        return true;
       }
 
       /**
@@ -682,7 +754,11 @@ public enum StateRegistry {
        * @return the packet instance, or {@code null} if the ID is not registered
        */
       public @Nullable MinecraftPacket createPacket(final int id) {
-        final Supplier<? extends MinecraftPacket> supplier = this.packetIdToSupplier.get(id);
+        final Supplier<? extends MinecraftPacket>[] suppliers = this.packetIdToSupplier;
+        if (id < 0 || id >= suppliers.length) {
+          return null;
+        }
+        final Supplier<? extends MinecraftPacket> supplier = suppliers[id];
         if (supplier == null) {
           return null;
         }
@@ -697,7 +773,7 @@ public enum StateRegistry {
        * @throws IllegalArgumentException if the packet ID is not found
        */
       public int getPacketId(final MinecraftPacket packet) {
-        final int id = this.packetClassToId.getInt(packet.getClass());
+        final int id = this.packetId(packet.getClass());
         if (id == Integer.MIN_VALUE) {
           throw new IllegalArgumentException(String.format(
               "Unable to find id for packet of type %s in %s protocol %s phase %s",
@@ -715,8 +791,41 @@ public enum StateRegistry {
        * @return {@code true} if the packet is registered, {@code false} otherwise
        */
       public boolean containsPacket(final MinecraftPacket packet) {
-        return this.packetClassToId.containsKey(packet.getClass());
+        return this.packetId(packet.getClass()) != Integer.MIN_VALUE;
+      }
+
+      /**
+       * Checks if the registry can create a packet with the specified {@code id}.
+       *
+       * @param id the packet ID
+       * @return {@code true} if the packet ID is registered, {@code false} otherwise
+       */
+      public boolean containsPacketId(final int id) {
+        final Supplier<? extends MinecraftPacket>[] suppliers = this.packetIdToSupplier;
+        return id >= 0 && id < suppliers.length && suppliers[id] != null;
+      }
+    }
+  }
+
+  /**
+   * The IDs a single packet class is registered under, indexed by protocol registry.
+   */
+  private static final class PacketIds {
+
+    private int[] ids = new int[0];
+
+    int get(final int registryIndex) {
+      final int[] ids = this.ids;
+      return registryIndex < ids.length ? ids[registryIndex] : Integer.MIN_VALUE;
+    }
+
+    void put(final int registryIndex, final int id) {
+      if (registryIndex >= ids.length) {
+        final int oldLength = ids.length;
+        ids = Arrays.copyOf(ids, Math.max(registryIndex + 1, oldLength * 2));
+        Arrays.fill(ids, oldLength, ids.length, Integer.MIN_VALUE);
       }
+      ids[registryIndex] = id;
     }
   }
 
@@ -46,6 +46,11 @@ import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.channel.unix.DomainSocketChannel;
 import io.netty.channel.unix.ServerDomainSocketChannel;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
 import java.net.SocketAddress;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.BiFunction;
@@ -71,7 +76,15 @@ public enum TransportType {
       KQueueDatagramChannel::new,
       KQueueServerDomainSocketChannel::new,
       KQueueDomainSocketChannel::new,
-      (name, type) -> new KQueueEventLoopGroup(0, createThreadFactory(name, type)));
+      (name, type) -> new KQueueEventLoopGroup(0, createThreadFactory(name, type))),
+  IO_URING("io_uring", IOUringServerSocketChannel::new,
+      IOUringSocketChannel::new,
+      IOUringDatagramChannel::new,
+      null,
+      null,
+      (name, type) -> new IOUringEventLoopGroup(0, createThreadFactory(name, type)));
+
+  private static final String ENABLE_IO_URING_PROPERTY = "velocity.enable-io-uring";
 
   final String name;
   final ChannelFactory<? extends ServerSocketChannel> serverSocketChannelFactory;
@@ -112,7 +125,7 @@ public enum TransportType {
     if (address instanceof DomainSocketAddress) {
       if (this.domainServerSocketChannelFactory == null) {
         throw new IllegalArgumentException(
-            "Domain sockets are not available for non-Linux platforms");
+            "Domain sockets are not available with the " + this.name + " transport");
       }
       return this.domainServerSocketChannelFactory;
     }
@@ -129,7 +142,7 @@ public enum TransportType {
     if (address instanceof DomainSocketAddress) {
       if (this.domainSocketChannelFactory == null) {
         throw new IllegalArgumentException(
-            "Domain sockets are not available for non-Linux platforms");
+            "Domain sockets are not available with the " + this.name + " transport");
       }
       return this.domainSocketChannelFactory;
     }
@@ -140,6 +153,20 @@ public enum TransportType {
     return datagramChannelFactory;
   }
 
+  /**
+   * Returns the transport that AsyncHttpClient should use next to this one. AsyncHttpClient only
+   * knows how to drive NIO, epoll and kqueue event loops, so io_uring falls back to epoll, or to
+   * NIO where epoll is not available.
+   *
+   * @return the transport for the HTTP client
+   */
+  public TransportType getHttpClientTransport() {
+    if (this != IO_URING) {
+      return this;
+    }
+    return Epoll.isAvailable() ? EPOLL : NIO;
+  }
+
   public EventLoopGroup createEventLoopGroup(final Type type) {
     return this.eventLoopGroupFactory.apply(this.name, type);
   }
@@ -158,6 +185,10 @@ public enum TransportType {
       return NIO;
     }
 
+    if (isIoUringRequested() && IOUring.isAvailable()) {
+      return IO_URING;
+    }
+
     if (Epoll.isAvailable()) {
       return EPOLL;
     }
@@ -169,6 +200,18 @@ public enum TransportType {
     return NIO;
   }
 
+  /**
+   * Returns whether the io_uring transport was requested with the
+   * {@code velocity.enable-io-uring} system property. It is only used when the running kernel
+   * supports it, otherwise {@link #bestType()} falls back to epoll.
+   *
+   * @return whether io_uring was requested
+   */
+  public static boolean isIoUringRequested() {
+    return Boolean.getBoolean(ENABLE_IO_URING_PROPERTY)
+        && !Boolean.getBoolean("velocity.disable-native-transport");
+  }
+
   /**
    * Event loop group types.
    */
@@ -180,7 +223,11 @@ public enum TransportType {
     /**
      * Thread that handles connections.
      */
-    WORKER("Worker");
+    WORKER("Worker"),
+    /**
+     * Thread that handles outgoing HTTP requests, if they can't run on the workers.
+     */
+    HTTP_CLIENT("HTTP Client");
 
     private final String name;
 
@@ -56,6 +56,7 @@ public class VelocityRegisteredServer implements RegisteredServer, ForwardingAud
   private final @Nullable VelocityServer server;
   private final ServerInfo serverInfo;
   private final Map<UUID, ConnectedPlayer> players = new ConcurrentHashMap<>();
+  private volatile @Nullable Boolean resourcePackDeduplication;
 
   public VelocityRegisteredServer(@Nullable VelocityServer server, ServerInfo serverInfo) {
     this.server = server;
@@ -116,6 +117,20 @@ public class VelocityRegisteredServer implements RegisteredServer, ForwardingAud
     return pingFuture;
   }
 
+  @Override
+  public boolean isResourcePackDeduplicationEnabled() {
+    Boolean override = resourcePackDeduplication;
+    if (override != null) {
+      return override;
+    }
+    return server != null && server.configuration().isDeduplicateResourcePacks();
+  }
+
+  @Override
+  public void setResourcePackDeduplicationEnabled(boolean enabled) {
+    this.resourcePackDeduplication = enabled;
+  }
+
   public void addPlayer(ConnectedPlayer player) {
     players.put(player.uuid(), player);
   }
@@ -33,6 +33,8 @@ import com.velocitypowered.api.proxy.config.ProxyConfig;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 import com.velocitypowered.api.util.ProxyVersion;
 import com.velocitypowered.natives.util.Natives;
+import com.velocitypowered.proxy.crypto.LoginCryptoExecutor;
+import com.velocitypowered.proxy.network.pipeline.compression.CompressionOffloadExecutor;
 import com.velocitypowered.proxy.network.util.TransportType;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
@@ -41,6 +43,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Helper class for {@code /velocity dump}.
@@ -119,6 +122,40 @@ public enum InformationUtils {
     return envInfo;
   }
 
+  /**
+   * Creates a {@link JsonObject} containing statistics about packets compressed away from the
+   * network threads.
+   *
+   * @param executor the compression offload executor
+   * @return {@link JsonObject} containing the offload statistics
+   */
+  public static JsonObject collectCompressionOffloadInfo(CompressionOffloadExecutor executor) {
+    JsonObject offloadInfo = new JsonObject();
+    offloadInfo.addProperty("offloadedPackets", executor.getOffloadedPackets());
+    offloadInfo.addProperty("offloadedBytes", executor.getOffloadedBytes());
+    offloadInfo.addProperty("eventLoopMillisSaved",
+        TimeUnit.NANOSECONDS.toMillis(executor.getEventLoopNanosSaved()));
+    offloadInfo.addProperty("rejectedPackets", executor.getRejectedPackets());
+    return offloadInfo;
+  }
+
+  /**
+   * Creates a {@link JsonObject} containing statistics about the login encryption work done away
+   * from the network threads.
+   *
+   * @param executor the login crypto executor
+   * @return {@link JsonObject} containing the login crypto statistics
+   */
+  public static JsonObject collectLoginCryptoInfo(LoginCryptoExecutor executor) {
+    JsonObject cryptoInfo = new JsonObject();
+    cryptoInfo.addProperty("queuedTasks", executor.getQueuedTasks());
+    cryptoInfo.addProperty("completedTasks", executor.getCompletedTasks());
+    cryptoInfo.addProperty("rejectedTasks", executor.getRejectedTasks());
+    cryptoInfo.addProperty("averageTaskMicros",
+        TimeUnit.NANOSECONDS.toMicros(executor.getAverageTaskNanos()));
+    return cryptoInfo;
+  }
+
   /**
    * Creates a {@link JsonObject} containing information about the forced hosts of the
    * {@link ProxyConfig} instance.
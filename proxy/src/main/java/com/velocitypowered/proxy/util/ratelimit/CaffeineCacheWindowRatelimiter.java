@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2018-2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A rate limiter that allows up to a fixed number of attempts per address within a window. The
+ * number of tracked addresses is bounded, so a flood from spoofed sources cannot grow it without
+ * limit.
+ */
+public class CaffeineCacheWindowRatelimiter implements Ratelimiter {
+
+  private final Cache<InetAddress, AtomicInteger> attempts;
+  private final int permits;
+
+  CaffeineCacheWindowRatelimiter(int permits, long time, TimeUnit unit, long maximumAddresses) {
+    this(permits, time, unit, maximumAddresses, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  CaffeineCacheWindowRatelimiter(int permits, long time, TimeUnit unit, long maximumAddresses,
+      Ticker ticker) {
+    Preconditions.checkArgument(permits > 0, "permits must be positive");
+    Preconditions.checkNotNull(unit, "unit");
+    Preconditions.checkNotNull(ticker, "ticker");
+    this.permits = permits;
+    this.attempts = Caffeine.newBuilder()
+        .ticker(ticker)
+        .expireAfterWrite(time, unit)
+        .maximumSize(maximumAddresses)
+        .build();
+  }
+
+  /**
+   * Attempts to rate-limit the client.
+   *
+   * @param address the address to rate limit
+   * @return true if we should allow the client, false if we should rate-limit
+   */
+  @Override
+  public boolean attempt(InetAddress address) {
+    Preconditions.checkNotNull(address, "address");
+    AtomicInteger count = attempts.get(address, (address1) -> new AtomicInteger());
+    return count.incrementAndGet() <= permits;
+  }
+}
@@ -32,4 +32,19 @@ public final class Ratelimiters {
     return ms <= 0 ? NoopCacheRatelimiter.INSTANCE : new CaffeineCacheRatelimiter(ms,
         TimeUnit.MILLISECONDS);
   }
+
+  /**
+   * Creates a rate limiter allowing {@code permits} attempts per address every {@code ms}
+   * milliseconds, tracking at most {@code maximumAddresses} addresses at once.
+   *
+   * @param permits the number of attempts allowed per window
+   * @param ms the length of the window in milliseconds
+   * @param maximumAddresses the maximum number of addresses to track
+   * @return the rate limiter
+   */
+  public static Ratelimiter createWithPermits(int permits, long ms, long maximumAddresses) {
+    return permits <= 0 || ms <= 0 ? NoopCacheRatelimiter.INSTANCE
+        : new CaffeineCacheWindowRatelimiter(permits, ms, TimeUnit.MILLISECONDS,
+            maximumAddresses);
+  }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class VelocityResourcePackInfoTest {
+
+  private static byte[] hash(int fill) {
+    byte[] hash = new byte[20];
+    Arrays.fill(hash, (byte) fill);
+    return hash;
+  }
+
+  private static ResourcePackInfo pack(String url, byte[] hash) {
+    return new VelocityResourcePackInfo.BuilderImpl(url).hash(hash).build();
+  }
+
+  @Test
+  void samePackWhenHashesMatchAcrossUrls() {
+    assertTrue(VelocityResourcePackInfo.isSamePack(
+        pack("https://a.example/pack.zip", hash(1)),
+        pack("https://b.example/pack.zip", hash(1))));
+  }
+
+  @Test
+  void differentPackWhenHashesDifferOnSameUrl() {
+    assertFalse(VelocityResourcePackInfo.isSamePack(
+        pack("https://a.example/pack.zip", hash(1)),
+        pack("https://a.example/pack.zip", hash(2))));
+  }
+
+  @Test
+  void fallsBackToUrlWhenAHashIsMissing() {
+    assertTrue(VelocityResourcePackInfo.isSamePack(
+        pack("https://a.example/pack.zip", hash(1)),
+        pack("https://a.example/pack.zip", null)));
+    assertFalse(VelocityResourcePackInfo.isSamePack(
+        pack("https://a.example/pack.zip", null),
+        pack("https://b.example/pack.zip", null)));
+  }
+}
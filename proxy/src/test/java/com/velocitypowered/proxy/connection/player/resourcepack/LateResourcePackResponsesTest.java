@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.event.player.PlayerResourcePackStatusEvent.Status;
+import org.junit.jupiter.api.Test;
+
+class LateResourcePackResponsesTest {
+
+  @Test
+  void passesResponsesWithoutTimeouts() {
+    LateResourcePackResponses late = new LateResourcePackResponses();
+    assertFalse(late.ignore(Status.ACCEPTED));
+    assertFalse(late.ignore(Status.SUCCESSFUL));
+  }
+
+  @Test
+  void ignoresLateSuccessAfterTimeout() {
+    LateResourcePackResponses late = new LateResourcePackResponses();
+    late.timedOut();
+
+    // The late answer to the timed out pack must not be applied to the next one.
+    assertTrue(late.ignore(Status.SUCCESSFUL));
+    assertFalse(late.ignore(Status.ACCEPTED));
+    assertFalse(late.ignore(Status.SUCCESSFUL));
+  }
+
+  @Test
+  void ignoresEverythingUpToTheFinalAnswer() {
+    LateResourcePackResponses late = new LateResourcePackResponses();
+    late.timedOut();
+
+    assertTrue(late.ignore(Status.ACCEPTED));
+    assertTrue(late.ignore(Status.FAILED_DOWNLOAD));
+    assertFalse(late.ignore(Status.DECLINED));
+  }
+
+  @Test
+  void ignoresOneAnswerPerTimeout() {
+    LateResourcePackResponses late = new LateResourcePackResponses();
+    late.timedOut();
+    late.timedOut();
+
+    assertTrue(late.ignore(Status.SUCCESSFUL));
+    assertTrue(late.ignore(Status.SUCCESSFUL));
+    assertFalse(late.ignore(Status.SUCCESSFUL));
+  }
+}
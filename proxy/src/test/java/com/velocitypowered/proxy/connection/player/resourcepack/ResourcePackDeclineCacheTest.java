@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResourcePackDeclineCacheTest {
+
+  private static final UUID PLAYER = UUID.fromString("069a79f4-44e9-4726-a5be-fca90e38aaf5");
+  private static final byte[] HASH = new byte[20];
+  private static final byte[] OTHER_HASH = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16,
+      17, 18, 19, 20};
+
+  @TempDir
+  Path directory;
+
+  private final AtomicLong clock = new AtomicLong(1_000_000);
+
+  private ResourcePackDeclineCache cache(Duration ttl) {
+    return new ResourcePackDeclineCache(ttl, 100, clock::get);
+  }
+
+  @Test
+  void remembersDeclinesPerPlayerAndPack() {
+    ResourcePackDeclineCache cache = cache(Duration.ofMinutes(10));
+    cache.declined(PLAYER, HASH);
+
+    assertTrue(cache.isDeclined(PLAYER, HASH));
+    assertFalse(cache.isDeclined(PLAYER, OTHER_HASH));
+    assertFalse(cache.isDeclined(UUID.randomUUID(), HASH));
+
+    cache.forget(PLAYER, HASH);
+    assertFalse(cache.isDeclined(PLAYER, HASH));
+  }
+
+  @Test
+  void forgetsExpiredDeclines() {
+    ResourcePackDeclineCache cache = cache(Duration.ofMinutes(10));
+    cache.declined(PLAYER, HASH);
+
+    clock.addAndGet(Duration.ofMinutes(9).toMillis());
+    assertTrue(cache.isDeclined(PLAYER, HASH));
+    clock.addAndGet(Duration.ofMinutes(2).toMillis());
+    assertFalse(cache.isDeclined(PLAYER, HASH));
+  }
+
+  @Test
+  void disabledWithoutTtl() {
+    ResourcePackDeclineCache cache = cache(Duration.ZERO);
+    cache.declined(PLAYER, HASH);
+    assertFalse(cache.isDeclined(PLAYER, HASH));
+  }
+
+  @Test
+  void snapshotKeepsRemainingTime() throws Exception {
+    Path snapshot = directory.resolve("declines.txt");
+    ResourcePackDeclineCache first = cache(Duration.ofMinutes(10));
+    first.declined(PLAYER, HASH);
+    clock.addAndGet(Duration.ofMinutes(5).toMillis());
+    first.declined(PLAYER, OTHER_HASH);
+    first.save(snapshot);
+
+    clock.addAndGet(Duration.ofMinutes(6).toMillis());
+    ResourcePackDeclineCache second = cache(Duration.ofMinutes(10));
+    second.load(snapshot);
+    assertFalse(second.isDeclined(PLAYER, HASH));
+    assertTrue(second.isDeclined(PLAYER, OTHER_HASH));
+
+    clock.addAndGet(Duration.ofMinutes(5).toMillis());
+    assertFalse(second.isDeclined(PLAYER, OTHER_HASH));
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.asynchttpclient.AsyncHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResourcePackHashResolverTest {
+
+  private static final Duration TTL = Duration.ofHours(1);
+  private static final Duration REVALIDATE = Duration.ofMinutes(5);
+
+  private HttpServer httpServer;
+  private AsyncHttpClient httpClient;
+  private final AtomicLong time = new AtomicLong();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger bodiesSent = new AtomicInteger();
+  private volatile byte[] pack;
+  private volatile String etag;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    pack = randomPack(1);
+    etag = "\"1\"";
+    httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    httpServer.createContext("/pack.zip", this::servePack);
+    httpServer.start();
+    httpClient = asyncHttpClient();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    httpClient.close();
+    httpServer.stop(0);
+  }
+
+  private void servePack(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    exchange.getResponseHeaders().set("ETag", etag);
+    if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      exchange.sendResponseHeaders(304, -1);
+      exchange.close();
+      return;
+    }
+    bodiesSent.incrementAndGet();
+    exchange.sendResponseHeaders(200, pack.length);
+    try (OutputStream body = exchange.getResponseBody()) {
+      body.write(pack);
+    }
+  }
+
+  private static byte[] randomPack(long seed) {
+    byte[] pack = new byte[3 * 1024 * 1024 + 17];
+    new Random(seed).nextBytes(pack);
+    return pack;
+  }
+
+  private String url() {
+    return "http://" + httpServer.getAddress().getHostString() + ':'
+        + httpServer.getAddress().getPort() + "/pack.zip";
+  }
+
+  private ResourcePackHashResolver resolver() {
+    return new ResourcePackHashResolver(httpClient, TTL, REVALIDATE, time::get);
+  }
+
+  private static byte[] sha1(byte[] data) throws Exception {
+    return MessageDigest.getInstance("SHA-1").digest(data);
+  }
+
+  @Test
+  void hashesPackAndCachesResult() throws Exception {
+    ResourcePackHashResolver resolver = resolver();
+    assertArrayEquals(sha1(pack), resolver.resolve(url()).get(5, TimeUnit.SECONDS));
+    assertArrayEquals(sha1(pack), resolver.resolve(url()).get(5, TimeUnit.SECONDS));
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  void revalidatesWithEtagOnceStale() throws Exception {
+    ResourcePackHashResolver resolver = resolver();
+    byte[] expected = sha1(pack);
+    assertArrayEquals(expected, resolver.resolve(url()).get(5, TimeUnit.SECONDS));
+
+    time.addAndGet(REVALIDATE.toNanos() + 1);
+    assertArrayEquals(expected, resolver.resolve(url()).get(5, TimeUnit.SECONDS));
+    assertEquals(2, requests.get());
+    assertEquals(1, bodiesSent.get());
+
+    // The pack changes: the next revalidation downloads and hashes the new one.
+    pack = randomPack(2);
+    etag = "\"2\"";
+    time.addAndGet(REVALIDATE.toNanos() + 1);
+    assertArrayEquals(sha1(pack), resolver.resolve(url()).get(5, TimeUnit.SECONDS));
+    assertEquals(2, bodiesSent.get());
+  }
+
+  @Test
+  void missingPackResolvesToNull() throws Exception {
+    ResourcePackHashResolver resolver = resolver();
+    String missing = url().replace("pack.zip", "missing.zip");
+    assertNull(resolver.resolve(missing).get(5, TimeUnit.SECONDS));
+    assertNull(resolver.resolve("file:///etc/passwd").get(5, TimeUnit.SECONDS));
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResourcePackHasherTest {
+
+  @TempDir
+  Path directory;
+
+  private static byte[] sha1(byte[] contents) throws Exception {
+    return MessageDigest.getInstance("SHA-1").digest(contents);
+  }
+
+  @Test
+  void hashesFile() throws Exception {
+    byte[] contents = new byte[100_000];
+    new Random(1).nextBytes(contents);
+    Path pack = Files.write(directory.resolve("pack.zip"), contents);
+
+    assertArrayEquals(sha1(contents), ResourcePackHasher.digest(pack));
+    ResourcePackHasher hasher = new ResourcePackHasher();
+    try {
+      assertArrayEquals(sha1(contents), hasher.hash(pack).join());
+      assertTrue(hasher.verify(pack, sha1(contents)).join());
+      assertFalse(hasher.verify(pack, new byte[20]).join());
+    } finally {
+      hasher.shutdown();
+    }
+  }
+
+  @Test
+  void hashesEmptyFile() throws Exception {
+    Path pack = Files.write(directory.resolve("empty.zip"), new byte[0]);
+    assertArrayEquals(sha1(new byte[0]), ResourcePackHasher.digest(pack));
+  }
+
+  @Test
+  void failsForMissingFile() {
+    ResourcePackHasher hasher = new ResourcePackHasher();
+    try {
+      assertThrows(CompletionException.class,
+          () -> hasher.hash(directory.resolve("missing.zip")).join());
+    } finally {
+      hasher.shutdown();
+    }
+  }
+
+  @Test
+  void reusesHashesFromIndex() throws Exception {
+    Path index = directory.resolve("cache").resolve("hashes.idx");
+    Path pack = Files.write(directory.resolve("pack.zip"), new byte[] {1, 2, 3});
+    FileTime lastModified = Files.getLastModifiedTime(pack);
+
+    ResourcePackHasher first = new ResourcePackHasher();
+    first.load(index);
+    first.hash(pack).join();
+    first.shutdown();
+    assertTrue(Files.isRegularFile(index));
+
+    // Same size and modification time, so the stale hash in the index is trusted.
+    Files.write(pack, new byte[] {4, 5, 6});
+    Files.setLastModifiedTime(pack, lastModified);
+    ResourcePackHasher second = new ResourcePackHasher();
+    try {
+      second.load(index);
+      assertArrayEquals(sha1(new byte[] {1, 2, 3}), second.hash(pack).join());
+
+      Files.setLastModifiedTime(pack, FileTime.fromMillis(lastModified.toMillis() + 10_000));
+      assertArrayEquals(sha1(new byte[] {4, 5, 6}), second.hash(pack).join());
+    } finally {
+      second.shutdown();
+    }
+  }
+}
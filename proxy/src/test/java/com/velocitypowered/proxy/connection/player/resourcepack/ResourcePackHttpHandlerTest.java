@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResourcePackHttpHandlerTest {
+
+  private static final int PACK_SIZE = 10_000;
+
+  @TempDir
+  Path directory;
+
+  private byte[] contents;
+  private LocalResourcePack pack;
+  private EmbeddedChannel channel;
+  private ResourcePackHasher hasher;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    contents = new byte[PACK_SIZE];
+    new Random(1).nextBytes(contents);
+    Files.write(directory.resolve("example.zip"), contents);
+    Files.write(directory.resolve("notes.txt"), new byte[] {1, 2, 3});
+
+    hasher = new ResourcePackHasher();
+    ResourcePackDirectory packs = new ResourcePackDirectory(directory, hasher);
+    packs.reload();
+    pack = packs.pack("example").orElseThrow();
+    channel = new EmbeddedChannel(new ResourcePackHttpHandler(packs));
+  }
+
+  @AfterEach
+  void tearDown() {
+    hasher.shutdown();
+  }
+
+  private static FullHttpRequest get(String uri) {
+    return new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+  }
+
+  private HttpResponse roundTrip(FullHttpRequest request) {
+    channel.writeInbound(request);
+    return channel.readOutbound();
+  }
+
+  private void assertFileRegion(long position, long count) throws IOException {
+    DefaultFileRegion region = channel.readOutbound();
+    try {
+      assertEquals(position, region.position());
+      assertEquals(count, region.count());
+    } finally {
+      region.release();
+    }
+    Object last = channel.readOutbound();
+    assertTrue(last instanceof LastHttpContent);
+    ReferenceCountUtil.release(last);
+  }
+
+  @Test
+  void directoryHashesPacks() throws Exception {
+    assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(contents), pack.hash());
+    assertEquals(PACK_SIZE, pack.size());
+  }
+
+  @Test
+  void servesWholePack() throws Exception {
+    HttpResponse response = roundTrip(get("/example.zip"));
+    assertEquals(HttpResponseStatus.OK, response.status());
+    assertEquals(PACK_SIZE, response.headers().getInt(HttpHeaderNames.CONTENT_LENGTH));
+    assertEquals(pack.etag(), response.headers().get(HttpHeaderNames.ETAG));
+    assertFileRegion(0, PACK_SIZE);
+  }
+
+  @Test
+  void servesRequestedRange() throws Exception {
+    FullHttpRequest request = get("/example.zip");
+    request.headers().set(HttpHeaderNames.RANGE, "bytes=100-199");
+    HttpResponse response = roundTrip(request);
+    assertEquals(HttpResponseStatus.PARTIAL_CONTENT, response.status());
+    assertEquals("bytes 100-199/" + PACK_SIZE,
+        response.headers().get(HttpHeaderNames.CONTENT_RANGE));
+    assertFileRegion(100, 100);
+  }
+
+  @Test
+  void rejectsUnsatisfiableRange() {
+    FullHttpRequest request = get("/example.zip");
+    request.headers().set(HttpHeaderNames.RANGE, "bytes=" + PACK_SIZE + "-");
+    HttpResponse response = roundTrip(request);
+    assertEquals(HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.status());
+    ReferenceCountUtil.release(response);
+  }
+
+  @Test
+  void answersConditionalRequestWithNotModified() {
+    FullHttpRequest request = get("/example.zip");
+    request.headers().set(HttpHeaderNames.IF_NONE_MATCH, pack.etag());
+    HttpResponse response = roundTrip(request);
+    assertEquals(HttpResponseStatus.NOT_MODIFIED, response.status());
+    ReferenceCountUtil.release(response);
+    assertNull(channel.readOutbound());
+  }
+
+  @Test
+  void servesOptimizedCopyUnderItsOwnUrl() throws Exception {
+    try (ZipOutputStream zip = new ZipOutputStream(
+        Files.newOutputStream(directory.resolve("stored.zip")))) {
+      zip.setLevel(0);
+      zip.putNextEntry(new ZipEntry("pack.mcmeta"));
+      zip.write(("{\n  \"pack\": {\n    \"pack_format\": 15\n  }\n}\n" + " ".repeat(4096))
+          .getBytes(StandardCharsets.UTF_8));
+      zip.closeEntry();
+    }
+
+    ResourcePackOptimizer optimizer = new ResourcePackOptimizer(directory.resolve("optimized"));
+    try {
+      ResourcePackDirectory packs = new ResourcePackDirectory(directory, hasher, optimizer);
+      packs.reload();
+      LocalResourcePack source = packs.source("stored").orElseThrow();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!packs.isOptimized(packs.pack("stored").orElseThrow())) {
+        assertTrue(System.nanoTime() < deadline, "pack was not optimized in time");
+        Thread.sleep(10);
+      }
+      LocalResourcePack optimized = packs.pack("stored").orElseThrow();
+      channel = new EmbeddedChannel(new ResourcePackHttpHandler(packs));
+
+      // The old URL keeps serving the bytes that match the hash players were given for it.
+      HttpResponse response = roundTrip(get("/stored.zip"));
+      assertEquals(source.etag(), response.headers().get(HttpHeaderNames.ETAG));
+      assertFileRegion(0, source.size());
+
+      response = roundTrip(
+          get("/optimized/stored/" + ByteBufUtil.hexDump(optimized.hash()) + ".zip"));
+      assertEquals(optimized.etag(), response.headers().get(HttpHeaderNames.ETAG));
+      assertFileRegion(0, optimized.size());
+
+      response = roundTrip(
+          get("/optimized/stored/" + ByteBufUtil.hexDump(source.hash()) + ".zip"));
+      assertEquals(HttpResponseStatus.NOT_FOUND, response.status());
+      ReferenceCountUtil.release(response);
+    } finally {
+      optimizer.shutdown();
+    }
+  }
+
+  @Test
+  void unknownPacksAreNotFound() {
+    HttpResponse response = roundTrip(get("/missing.zip"));
+    assertEquals(HttpResponseStatus.NOT_FOUND, response.status());
+    ReferenceCountUtil.release(response);
+
+    response = roundTrip(get("/notes.txt"));
+    assertEquals(HttpResponseStatus.NOT_FOUND, response.status());
+    ReferenceCountUtil.release(response);
+  }
+
+  @Test
+  void parsesRanges() {
+    assertArrayEquals(new long[] {0, 99}, ResourcePackHttpHandler.parseRange("bytes=0-99", 1000));
+    assertArrayEquals(new long[] {900, 999},
+        ResourcePackHttpHandler.parseRange("bytes=-100", 1000));
+    assertArrayEquals(new long[] {500, 999},
+        ResourcePackHttpHandler.parseRange("bytes=500-", 1000));
+    assertArrayEquals(new long[] {500, 999},
+        ResourcePackHttpHandler.parseRange("bytes=500-5000", 1000));
+    // Multiple or malformed ranges are ignored and the whole pack is served.
+    assertArrayEquals(new long[] {0, 999},
+        ResourcePackHttpHandler.parseRange("bytes=0-1,5-6", 1000));
+    assertArrayEquals(new long[] {0, 999}, ResourcePackHttpHandler.parseRange("items=0-1", 1000));
+    assertNull(ResourcePackHttpHandler.parseRange("bytes=1000-", 1000));
+  }
+}
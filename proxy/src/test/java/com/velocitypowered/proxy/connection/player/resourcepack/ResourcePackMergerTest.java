@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.asynchttpclient.AsyncHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResourcePackMergerTest {
+
+  @TempDir
+  Path packDirectory;
+  @TempDir
+  Path cacheDirectory;
+
+  private AsyncHttpClient httpClient;
+  private ResourcePackHasher hasher;
+  private ResourcePackDirectory packs;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    writeZip(packDirectory.resolve("ui.zip"), Map.of(
+        "pack.mcmeta", "ui",
+        "assets/ui.png", "ui image"));
+    writeZip(packDirectory.resolve("lobby.zip"), Map.of(
+        "pack.mcmeta", "lobby",
+        "assets/lobby.png", "lobby image"));
+    hasher = new ResourcePackHasher();
+    packs = new ResourcePackDirectory(packDirectory, hasher);
+    packs.reload();
+    httpClient = asyncHttpClient();
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    httpClient.close();
+    hasher.shutdown();
+  }
+
+  private ResourcePackMerger merger(long maxCacheSize) throws IOException {
+    ResourcePackMerger merger = new ResourcePackMerger(cacheDirectory, maxCacheSize, packs,
+        new ResourcePackHashResolver(httpClient), httpClient);
+    merger.load();
+    return merger;
+  }
+
+  private ResourcePackInfo info(String id) {
+    LocalResourcePack pack = packs.pack(id).orElseThrow();
+    return new VelocityResourcePackInfo.BuilderImpl("http://localhost/" + id + ".zip")
+        .hash(pack.hash())
+        .build();
+  }
+
+  private static void writeZip(Path path, Map<String, String> entries) throws IOException {
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(path))) {
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        zip.putNextEntry(new ZipEntry(entry.getKey()));
+        zip.write(entry.getValue().getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+  }
+
+  private static Map<String, String> readZip(Path path) throws IOException {
+    Map<String, String> entries = new HashMap<>();
+    try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(path))) {
+      ZipEntry entry;
+      while ((entry = zip.getNextEntry()) != null) {
+        entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+    return entries;
+  }
+
+  private static LocalResourcePack await(ResourcePackMerger merger, List<ResourcePackInfo> inputs)
+      throws Exception {
+    return merger.merge(inputs).get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void laterPacksTakePrecedence() throws Exception {
+    ResourcePackMerger merger = merger(Long.MAX_VALUE);
+    try {
+      LocalResourcePack merged = await(merger, List.of(info("ui"), info("lobby")));
+      assertEquals(Map.of(
+          "pack.mcmeta", "lobby",
+          "assets/ui.png", "ui image",
+          "assets/lobby.png", "lobby image"), readZip(merged.path()));
+      assertArrayEquals(MessageDigest.getInstance("SHA-1").digest(Files.readAllBytes(
+          merged.path())), merged.hash());
+    } finally {
+      merger.shutdown();
+    }
+  }
+
+  @Test
+  void cachesByOrderedInputs() throws Exception {
+    ResourcePackMerger merger = merger(Long.MAX_VALUE);
+    try {
+      LocalResourcePack first = await(merger, List.of(info("ui"), info("lobby")));
+      LocalResourcePack again = await(merger, List.of(info("ui"), info("lobby")));
+      LocalResourcePack reversed = await(merger, List.of(info("lobby"), info("ui")));
+      assertEquals(first.id(), again.id());
+      assertNotEquals(first.id(), reversed.id());
+      assertEquals("ui", readZip(reversed.path()).get("pack.mcmeta"));
+    } finally {
+      merger.shutdown();
+    }
+
+    ResourcePackMerger reloaded = merger(Long.MAX_VALUE);
+    try {
+      assertTrue(reloaded.pack(
+          await(reloaded, List.of(info("ui"), info("lobby"))).id()).isPresent());
+    } finally {
+      reloaded.shutdown();
+    }
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedPacks() throws Exception {
+    ResourcePackMerger merger = merger(1);
+    try {
+      LocalResourcePack first = await(merger, List.of(info("ui"), info("lobby")));
+      LocalResourcePack second = await(merger, List.of(info("lobby"), info("ui")));
+      assertFalse(merger.pack(first.id()).isPresent());
+      assertFalse(Files.exists(first.path()));
+      assertTrue(merger.pack(second.id()).isPresent());
+      assertTrue(Files.exists(second.path()));
+    } finally {
+      merger.shutdown();
+    }
+  }
+
+  @Test
+  void mergesEntriesOnlyOnce() throws Exception {
+    Path merged = cacheDirectory.resolve("merged.zip");
+    try (OutputStream out = Files.newOutputStream(merged)) {
+      ResourcePackMerger.mergeZips(List.of(packDirectory.resolve("lobby.zip"),
+          packDirectory.resolve("ui.zip")), out);
+    }
+    assertEquals(3, readZip(merged).size());
+  }
+}
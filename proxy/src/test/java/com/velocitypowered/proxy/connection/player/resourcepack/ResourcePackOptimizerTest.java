@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResourcePackOptimizerTest {
+
+  @TempDir
+  Path directory;
+
+  private Path writePack() throws IOException {
+    byte[] texture = new byte[4096];
+    new Random(1).nextBytes(texture);
+    Path path = directory.resolve("pack.zip");
+    try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(path))) {
+      zip.setLevel(0);
+      put(zip, "pack.mcmeta", "{\n  \"pack\": {\n    \"pack_format\": 15\n  }\n}\n"
+          .getBytes(StandardCharsets.UTF_8));
+      put(zip, "assets/minecraft/textures/item/b.png", texture);
+      put(zip, "assets/minecraft/models/item/a.json",
+          "{\n  \"parent\": \"item/generated\",\n  \"textures\": {\"layer0\": \"item/a\"}\n}"
+              .getBytes(StandardCharsets.UTF_8));
+      put(zip, "assets/minecraft/lang/en_us.lang",
+          "# Items\n\nitem.a.name=A\n".getBytes(StandardCharsets.UTF_8));
+      put(zip, "__MACOSX/assets/._b.png", new byte[] {1});
+      put(zip, "assets/.DS_Store", new byte[] {2});
+      put(zip, ".git/HEAD", new byte[] {3});
+    }
+    return path;
+  }
+
+  private static void put(ZipOutputStream zip, String name, byte[] contents) throws IOException {
+    zip.putNextEntry(new ZipEntry(name));
+    zip.write(contents);
+    zip.closeEntry();
+  }
+
+  private static Map<String, String> readZip(byte[] zip) throws IOException {
+    Map<String, String> entries = new LinkedHashMap<>();
+    try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+      ZipEntry entry;
+      while ((entry = in.getNextEntry()) != null) {
+        entries.put(entry.getName(), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+      }
+    }
+    return entries;
+  }
+
+  @Test
+  void optimizesPack() throws Exception {
+    Path pack = writePack();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ResourcePackOptimizer.Result result = ResourcePackOptimizer.optimize(pack, out);
+
+    assertEquals(3, result.removed);
+    assertEquals(3, result.minified);
+    assertTrue(out.size() < Files.size(pack));
+
+    Map<String, String> entries = readZip(out.toByteArray());
+    assertEquals(4, entries.size());
+    assertEquals("{\"pack\":{\"pack_format\":15}}", entries.get("pack.mcmeta"));
+    assertEquals("{\"parent\":\"item/generated\",\"textures\":{\"layer0\":\"item/a\"}}",
+        entries.get("assets/minecraft/models/item/a.json"));
+    assertEquals("item.a.name=A\n", entries.get("assets/minecraft/lang/en_us.lang"));
+    assertTrue(entries.containsKey("assets/minecraft/textures/item/b.png"));
+  }
+
+  @Test
+  void outputIsStable() throws Exception {
+    Path pack = writePack();
+    ByteArrayOutputStream first = new ByteArrayOutputStream();
+    ResourcePackOptimizer.optimize(pack, first);
+    ByteArrayOutputStream second = new ByteArrayOutputStream();
+    ResourcePackOptimizer.optimize(pack, second);
+    assertArrayEquals(first.toByteArray(), second.toByteArray());
+  }
+
+  @Test
+  void leavesMalformedJsonAlone() {
+    byte[] contents = "{ \"broken\": ".getBytes(StandardCharsets.UTF_8);
+    assertSame(contents, ResourcePackOptimizer.minify("assets/a.json", contents));
+    byte[] texture = {1, 2, 3};
+    assertSame(texture, ResourcePackOptimizer.minify("assets/a.png", texture));
+  }
+
+  @Test
+  void ignoresMetadataFiles() {
+    assertTrue(ResourcePackOptimizer.isIgnored("__MACOSX/pack.mcmeta"));
+    assertTrue(ResourcePackOptimizer.isIgnored("assets/Thumbs.db"));
+    assertTrue(ResourcePackOptimizer.isIgnored(".idea/workspace.xml"));
+    assertTrue(ResourcePackOptimizer.isIgnored("assets/._a.png"));
+    assertFalse(ResourcePackOptimizer.isIgnored("assets/minecraft/textures/a.png"));
+    assertFalse(ResourcePackOptimizer.isIgnored("pack.mcmeta"));
+  }
+
+  @Test
+  void reusesOptimizedCopy() throws Exception {
+    Path pack = writePack();
+    LocalResourcePack source = new LocalResourcePack("pack", pack, Files.size(pack),
+        Files.getLastModifiedTime(pack).toMillis(), ResourcePackHasher.digest(pack));
+    ResourcePackOptimizer optimizer = new ResourcePackOptimizer(directory.resolve("optimized"));
+    try {
+      LocalResourcePack first = optimizer.optimize(source).join();
+      LocalResourcePack second = optimizer.optimize(source).join();
+      assertEquals("pack", first.id());
+      assertEquals(first.path(), second.path());
+      assertArrayEquals(first.hash(), second.hash());
+      assertArrayEquals(ResourcePackHasher.digest(first.path()), first.hash());
+    } finally {
+      optimizer.shutdown();
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ResourcePackQueuePolicyTest {
+
+  private static ResourcePackInfo pack(String name, boolean required,
+      ResourcePackInfo.Origin origin) {
+    return new VelocityResourcePackInfo.BuilderImpl("https://example.com/" + name + ".zip")
+        .required(required)
+        .setOrigin(origin)
+        .build();
+  }
+
+  private static ResourcePackInfo serverPack(String name, boolean required) {
+    return pack(name, required, ResourcePackInfo.Origin.DOWNSTREAM_SERVER);
+  }
+
+  private static ResourcePackInfo proxyPack(String name, boolean required) {
+    return pack(name, required, ResourcePackInfo.Origin.PLUGIN_ON_PROXY);
+  }
+
+  @Test
+  void leavesHeadAndSingleWaitingPackAlone() {
+    ResourcePackQueuePolicy policy = new ResourcePackQueuePolicy();
+    Deque<ResourcePackInfo> queue = new ArrayDeque<>(List.of(
+        serverPack("a", false), serverPack("b", false)));
+
+    assertTrue(policy.collapse(queue).isEmpty());
+    assertEquals(2, queue.size());
+    assertEquals(0, policy.avoidedDownloads());
+  }
+
+  @Test
+  void dropsWaitingPacksReplacedByLaterRequiredPacks() {
+    ResourcePackQueuePolicy policy = new ResourcePackQueuePolicy();
+    ResourcePackInfo head = serverPack("head", false);
+    ResourcePackInfo first = serverPack("first", false);
+    ResourcePackInfo second = proxyPack("second", true);
+    ResourcePackInfo last = proxyPack("last", true);
+    Deque<ResourcePackInfo> queue = new ArrayDeque<>(List.of(head, first, second, last));
+
+    assertEquals(List.of(first, second), policy.collapse(queue));
+    assertEquals(List.of(head, last), List.copyOf(queue));
+    assertEquals(2, policy.avoidedDownloads());
+  }
+
+  @Test
+  void keepsPacksFollowedOnlyByOptionalPacks() {
+    ResourcePackQueuePolicy policy = new ResourcePackQueuePolicy();
+    ResourcePackInfo head = serverPack("head", false);
+    ResourcePackInfo first = serverPack("first", false);
+    ResourcePackInfo second = proxyPack("second", false);
+    ResourcePackInfo last = proxyPack("last", false);
+    Deque<ResourcePackInfo> queue = new ArrayDeque<>(List.of(head, first, second, last));
+
+    // The player may decline any of the later packs, so none of them can stand in for another.
+    assertTrue(policy.collapse(queue).isEmpty());
+    assertEquals(List.of(head, first, second, last), List.copyOf(queue));
+  }
+
+  @Test
+  void keepsPacksThatOutrankLaterPacks() {
+    ResourcePackQueuePolicy policy = new ResourcePackQueuePolicy();
+    ResourcePackInfo head = serverPack("head", false);
+    ResourcePackInfo required = serverPack("required", true);
+    ResourcePackInfo proxy = proxyPack("proxy", false);
+    ResourcePackInfo server = serverPack("server", false);
+    Deque<ResourcePackInfo> queue = new ArrayDeque<>(List.of(head, required, proxy, server));
+
+    assertTrue(policy.collapse(queue).isEmpty());
+    assertEquals(List.of(head, required, proxy, server), List.copyOf(queue));
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.player.resourcepack;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.velocitypowered.api.event.player.PlayerResourcePackStatusEvent.Status;
+import com.velocitypowered.api.proxy.player.ResourcePackInfo;
+import com.velocitypowered.api.proxy.player.ResourcePackStatistics;
+import com.velocitypowered.proxy.connection.player.VelocityResourcePackInfo;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ResourcePackTelemetryTest {
+
+  private static final ResourcePackInfo PACK =
+      new VelocityResourcePackInfo.BuilderImpl("https://Packs.example.com/lobby.zip").build();
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  @Test
+  void groupsByHost() {
+    assertEquals("packs.example.com", ResourcePackTelemetry.hostOf(PACK.url()));
+    assertEquals(ResourcePackTelemetry.OTHER_HOSTS, ResourcePackTelemetry.hostOf("not a url"));
+  }
+
+  @Test
+  void aggregatesResponses() {
+    ResourcePackTelemetry telemetry = new ResourcePackTelemetry();
+    for (int i = 0; i < 4; i++) {
+      telemetry.offered(PACK);
+    }
+    telemetry.responded(PACK, Status.ACCEPTED, millis(40));
+    telemetry.responded(PACK, Status.SUCCESSFUL, millis(800));
+    telemetry.responded(PACK, Status.ACCEPTED, millis(40));
+    telemetry.responded(PACK, Status.SUCCESSFUL, millis(900));
+    telemetry.responded(PACK, Status.ACCEPTED, millis(40));
+    telemetry.responded(PACK, Status.FAILED_DOWNLOAD, millis(20_000));
+    telemetry.responded(PACK, Status.DECLINED, millis(3_000));
+
+    ResourcePackStatistics statistics = telemetry.statistics().iterator().next();
+    assertEquals("packs.example.com", statistics.host());
+    assertEquals(4, statistics.offered());
+    assertEquals(3, statistics.accepted());
+    assertEquals(0.25, statistics.declineRate(), 1e-9);
+    assertEquals(1 / 3.0, statistics.failureRate(), 1e-9);
+    assertEquals(Duration.ofMillis(50), statistics.responseTime(0.5));
+    assertEquals(Duration.ofMillis(1_000), statistics.downloadTime(0.5));
+    assertEquals(Duration.ofMillis(30_000), statistics.downloadTime(0.95));
+  }
+
+  @Test
+  void emptyHistogramReportsZero() {
+    assertEquals(Duration.ZERO, new LatencyHistogram().percentile(0.99));
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.api.proxy.server.ServerInfo;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.kyori.adventure.text.Component;
+import org.junit.jupiter.api.Test;
+
+class BackendPingCacheTest {
+
+  private static final ServerInfo LOBBY =
+      new ServerInfo("lobby", InetSocketAddress.createUnresolved("localhost", 25566));
+  private static final Duration TTL = Duration.ofSeconds(5);
+
+  private final AtomicLong now = new AtomicLong();
+  private final BackendPingCache cache = new BackendPingCache(Duration.ofMinutes(1), now::get);
+  private final List<CompletableFuture<ServerPing>> started = new ArrayList<>();
+
+  private CompletableFuture<ServerPing> ping(ProtocolVersion version) {
+    return cache.ping(LOBBY, version, TTL, () -> {
+      CompletableFuture<ServerPing> ping = new CompletableFuture<>();
+      started.add(ping);
+      return ping;
+    });
+  }
+
+  private static ServerPing response(String motd) {
+    return new ServerPing(new ServerPing.Version(764, "1.20.2"),
+        new ServerPing.Players(0, 20, ImmutableList.of()), Component.text(motd), null);
+  }
+
+  private void advance(Duration duration) {
+    now.addAndGet(duration.toNanos());
+  }
+
+  @Test
+  void coalescesConcurrentPings() {
+    CompletableFuture<ServerPing> first = ping(ProtocolVersion.MINECRAFT_1_20_2);
+    CompletableFuture<ServerPing> second = ping(ProtocolVersion.MINECRAFT_1_20_2);
+    assertEquals(1, started.size());
+    assertSame(first, second);
+  }
+
+  @Test
+  void cachesPerProtocolVersion() {
+    ping(ProtocolVersion.MINECRAFT_1_20_2).complete(response("a"));
+    ping(ProtocolVersion.MINECRAFT_1_8);
+    assertEquals(2, started.size());
+  }
+
+  @Test
+  void servesStaleResultWhileRefreshing() {
+    ServerPing old = response("old");
+    ping(ProtocolVersion.MINECRAFT_1_20_2).complete(old);
+
+    advance(Duration.ofSeconds(4));
+    assertSame(old, ping(ProtocolVersion.MINECRAFT_1_20_2).join());
+    assertEquals(1, started.size());
+
+    advance(Duration.ofSeconds(2));
+    assertSame(old, ping(ProtocolVersion.MINECRAFT_1_20_2).join());
+    assertSame(old, ping(ProtocolVersion.MINECRAFT_1_20_2).join());
+    assertEquals(2, started.size());
+
+    ServerPing fresh = response("fresh");
+    started.get(1).complete(fresh);
+    assertSame(fresh, ping(ProtocolVersion.MINECRAFT_1_20_2).join());
+    assertEquals(2, started.size());
+  }
+
+  @Test
+  void waitsWhenResultIsTooOld() {
+    ping(ProtocolVersion.MINECRAFT_1_20_2).complete(response("old"));
+    advance(Duration.ofMinutes(2));
+
+    CompletableFuture<ServerPing> ping = ping(ProtocolVersion.MINECRAFT_1_20_2);
+    assertFalse(ping.isDone());
+    assertEquals(2, started.size());
+  }
+
+  @Test
+  void cachesFailures() {
+    ping(ProtocolVersion.MINECRAFT_1_20_2).completeExceptionally(new RuntimeException("down"));
+    assertTrue(ping(ProtocolVersion.MINECRAFT_1_20_2).isCompletedExceptionally());
+    assertEquals(1, started.size());
+  }
+
+  @Test
+  void zeroTtlDisablesCache() {
+    AtomicInteger pings = new AtomicInteger();
+    for (int i = 0; i < 2; i++) {
+      cache.ping(LOBBY, ProtocolVersion.MINECRAFT_1_20_2, Duration.ZERO, () -> {
+        pings.incrementAndGet();
+        return CompletableFuture.completedFuture(response("uncached"));
+      });
+    }
+    assertEquals(2, pings.get());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.connection.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.network.protocol.packet.StatusResponse;
+import io.netty.buffer.ByteBuf;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class StatusResponseCacheTest {
+
+  private static final ProtocolVersion VERSION = ProtocolVersion.MINECRAFT_1_20_2;
+  private static final String STATUS = "{\"description\":\"A Velocity Server\"}";
+
+  private final AtomicLong now = new AtomicLong();
+  private final StatusResponseCache cache = new StatusResponseCache(now::get);
+
+  private void advanceMillis(long millis) {
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+  }
+
+  @Test
+  void encodesStatusResponsePacket() {
+    ByteBuf encoded = StatusResponseCache.encode(VERSION, STATUS);
+    assertEquals(0x00, ProtocolUtils.readVarInt(encoded));
+    StatusResponse packet = new StatusResponse();
+    packet.decode(encoded, ProtocolUtils.Direction.CLIENTBOUND, VERSION);
+    assertEquals(STATUS, packet.getStatus());
+  }
+
+  @Test
+  void servesDuplicates() {
+    cache.put(VERSION, "", 3, STATUS);
+    ByteBuf first = cache.get(VERSION, "", 3, Long.MAX_VALUE);
+    assertNotNull(first);
+    first.skipBytes(first.readableBytes());
+
+    ByteBuf second = cache.get(VERSION, "", 3, Long.MAX_VALUE);
+    assertNotNull(second);
+    assertEquals(StatusResponseCache.encode(VERSION, STATUS), second);
+  }
+
+  @Test
+  void keyedByVersionAndHost() {
+    cache.put(VERSION, "", 3, STATUS);
+    assertNull(cache.get(ProtocolVersion.MINECRAFT_1_8, "", 3, Long.MAX_VALUE));
+    assertNull(cache.get(VERSION, "lobby.example.com", 3, Long.MAX_VALUE));
+  }
+
+  @Test
+  void debouncesPlayerCountChanges() {
+    cache.put(VERSION, "", 3, STATUS);
+    advanceMillis(500);
+    assertNotNull(cache.get(VERSION, "", 4, Long.MAX_VALUE));
+    advanceMillis(600);
+    assertNull(cache.get(VERSION, "", 4, Long.MAX_VALUE));
+    assertNotNull(cache.get(VERSION, "", 3, Long.MAX_VALUE));
+  }
+
+  @Test
+  void expiresAfterMaxAge() {
+    cache.put(VERSION, "", 3, STATUS);
+    advanceMillis(100);
+    assertNotNull(cache.get(VERSION, "", 3, TimeUnit.MILLISECONDS.toNanos(200)));
+    advanceMillis(100);
+    assertNull(cache.get(VERSION, "", 3, TimeUnit.MILLISECONDS.toNanos(200)));
+  }
+
+  @Test
+  void clearForgetsResponses() {
+    cache.put(VERSION, "", 3, STATUS);
+    cache.clear();
+    assertNull(cache.get(VERSION, "", 3, Long.MAX_VALUE));
+  }
+}
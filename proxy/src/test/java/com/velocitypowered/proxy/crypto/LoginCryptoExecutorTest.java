@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class LoginCryptoExecutorTest {
+
+  @Test
+  void completesWithResult() throws Exception {
+    LoginCryptoExecutor executor = new LoginCryptoExecutor(1, 1);
+    try {
+      assertEquals("ok", executor.submit(() -> "ok").get(5, TimeUnit.SECONDS));
+      assertEquals(1, executor.getCompletedTasks());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void propagatesFailure() {
+    LoginCryptoExecutor executor = new LoginCryptoExecutor(1, 1);
+    try {
+      CompletableFuture<Object> future = executor.submit(() -> {
+        throw new IllegalStateException("bad token");
+      });
+      ExecutionException e = assertThrows(ExecutionException.class,
+          () -> future.get(5, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof IllegalStateException);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void rejectsWhenSaturated() throws Exception {
+    LoginCryptoExecutor executor = new LoginCryptoExecutor(1, 1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      CompletableFuture<Boolean> running = executor.submit(() -> {
+        started.countDown();
+        return release.await(5, TimeUnit.SECONDS);
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      CompletableFuture<String> queued = executor.submit(() -> "queued");
+      assertEquals(1, executor.getQueuedTasks());
+
+      assertThrows(RejectedExecutionException.class, () -> executor.submit(() -> "rejected"));
+      assertEquals(1, executor.getRejectedTasks());
+
+      release.countDown();
+      assertTrue(running.get(5, TimeUnit.SECONDS));
+      assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+    } finally {
+      release.countDown();
+      executor.shutdown();
+    }
+  }
+}
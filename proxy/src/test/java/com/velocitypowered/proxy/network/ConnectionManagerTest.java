@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network;
+
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.velocitypowered.proxy.network.util.TransportType;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.asynchttpclient.AsyncHttpClient;
+import org.junit.jupiter.api.Test;
+
+class ConnectionManagerTest {
+
+  @Test
+  void httpClientSharesSupportedWorkerGroup() {
+    EventLoopGroup workerGroup = new NioEventLoopGroup(1);
+    try {
+      assertSame(workerGroup,
+          ConnectionManager.createHttpClientGroup(TransportType.NIO, workerGroup));
+    } finally {
+      workerGroup.shutdownGracefully();
+    }
+  }
+
+  @Test
+  void ioUringUsesSeparateHttpClientTransport() {
+    assertNotEquals(TransportType.IO_URING, TransportType.IO_URING.getHttpClientTransport());
+  }
+
+  @Test
+  void httpClientStartsWithIoUringTransport() throws Exception {
+    // The worker group itself is never handed to AsyncHttpClient, so any group stands in for it.
+    EventLoopGroup workerGroup = new NioEventLoopGroup(1);
+    EventLoopGroup httpClientGroup = ConnectionManager.createHttpClientGroup(
+        TransportType.IO_URING, workerGroup);
+    try {
+      assertNotSame(workerGroup, httpClientGroup);
+      // AsyncHttpClient rejects event loop groups it can't drive while it is being built.
+      AsyncHttpClient client = asyncHttpClient(config()
+          .setEventLoopGroup(httpClientGroup)
+          .build());
+      client.close();
+    } finally {
+      httpClientGroup.shutdownGracefully();
+      workerGroup.shutdownGracefully();
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.compression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompressionOffloadTest {
+
+  private static final int THRESHOLD = 256;
+  private static final int OFFLOAD_THRESHOLD = 4096;
+
+  private CompressionOffloadExecutor executor;
+
+  @BeforeEach
+  void setUp() {
+    executor = new CompressionOffloadExecutor();
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
+  private EmbeddedChannel createChannel() {
+    MinecraftCompressorAndLengthEncoder encoder = new MinecraftCompressorAndLengthEncoder(
+        THRESHOLD, JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION));
+    encoder.enableOffload(executor, OFFLOAD_THRESHOLD, Deflater.DEFAULT_COMPRESSION);
+    return new EmbeddedChannel(encoder);
+  }
+
+  private static byte[] payload(int length, int seed) {
+    byte[] data = new byte[length];
+    new Random(seed).nextBytes(data);
+    return data;
+  }
+
+  private void awaitOffloaded(long packets) throws InterruptedException {
+    for (int i = 0; i < 500 && executor.getOffloadedPackets() < packets; i++) {
+      Thread.sleep(10);
+    }
+    // Give the worker a moment to hand the result back to the channel's event loop.
+    Thread.sleep(20);
+  }
+
+  private static ByteBuf readOutbound(EmbeddedChannel channel) {
+    channel.runPendingTasks();
+    return channel.readOutbound();
+  }
+
+  private static byte[] decodeFrame(ByteBuf frame) throws DataFormatException {
+    int length = ProtocolUtils.readVarInt(frame);
+    assertEquals(length, frame.readableBytes());
+    int uncompressedSize = ProtocolUtils.readVarInt(frame);
+    if (uncompressedSize == 0) {
+      return ByteBufUtil.getBytes(frame);
+    }
+    ByteBuf uncompressed = Unpooled.buffer(uncompressedSize);
+    VelocityCompressor compressor = JavaVelocityCompressor.FACTORY
+        .create(Deflater.DEFAULT_COMPRESSION);
+    try {
+      compressor.inflate(frame, uncompressed, uncompressedSize);
+      return ByteBufUtil.getBytes(uncompressed);
+    } finally {
+      compressor.close();
+      uncompressed.release();
+    }
+  }
+
+  @Test
+  void largePacketsAreCompressedOffTheEventLoop() throws Exception {
+    EmbeddedChannel channel = createChannel();
+    byte[] large = payload(OFFLOAD_THRESHOLD * 4, 1);
+    channel.writeAndFlush(Unpooled.wrappedBuffer(large));
+    awaitOffloaded(1);
+
+    ByteBuf frame = readOutbound(channel);
+    assertNotNull(frame, "Offloaded packet was never written");
+    try {
+      assertEquals(Unpooled.wrappedBuffer(large), Unpooled.wrappedBuffer(decodeFrame(frame)));
+    } finally {
+      frame.release();
+    }
+    assertEquals(1, executor.getOffloadedPackets());
+    assertEquals(large.length, executor.getOffloadedBytes());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void writesStayInOrderBehindOffloadedPackets() throws Exception {
+    EmbeddedChannel channel = createChannel();
+    byte[] large = payload(OFFLOAD_THRESHOLD * 4, 1);
+    byte[] medium = payload(THRESHOLD * 2, 2);
+    byte[] small = payload(16, 3);
+    channel.write(Unpooled.wrappedBuffer(large));
+    channel.write(Unpooled.wrappedBuffer(medium));
+    channel.writeAndFlush(Unpooled.wrappedBuffer(small));
+    awaitOffloaded(1);
+
+    for (byte[] expected : new byte[][] {large, medium, small}) {
+      ByteBuf frame = readOutbound(channel);
+      assertNotNull(frame, "Packet was never written");
+      try {
+        assertEquals(Unpooled.wrappedBuffer(expected),
+            Unpooled.wrappedBuffer(decodeFrame(frame)));
+      } finally {
+        frame.release();
+      }
+    }
+    assertTrue(executor.getEventLoopNanosSaved() > 0);
+    channel.finishAndReleaseAll();
+  }
+}
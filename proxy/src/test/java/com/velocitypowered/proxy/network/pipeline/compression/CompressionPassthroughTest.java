@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.compression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.velocitypowered.api.network.ProtocolVersion;
+import com.velocitypowered.natives.compression.JavaVelocityCompressor;
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.proxy.network.pipeline.deser.MinecraftDecoder;
+import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.network.protocol.StateRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+
+class CompressionPassthroughTest {
+
+  private static final int THRESHOLD = 256;
+
+  private static MinecraftDecoder playDecoder() {
+    MinecraftDecoder decoder = new MinecraftDecoder(ProtocolUtils.Direction.CLIENTBOUND);
+    decoder.setState(StateRegistry.PLAY);
+    decoder.setProtocolVersion(ProtocolVersion.MAXIMUM_VERSION);
+    return decoder;
+  }
+
+  private static int findUndecodedPacketId(MinecraftDecoder decoder) {
+    int id = 0;
+    while (decoder.isDecoded(id)) {
+      id++;
+    }
+    return id;
+  }
+
+  private static byte[] createPayload(int packetId) {
+    ByteBuf payload = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(payload, packetId);
+    byte[] data = new byte[THRESHOLD * 4];
+    new Random(1).nextBytes(data);
+    payload.writeBytes(data);
+    byte[] bytes = ByteBufUtil.getBytes(payload);
+    payload.release();
+    return bytes;
+  }
+
+  private static ByteBuf compressFrame(byte[] payload) throws DataFormatException {
+    ByteBuf frame = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(frame, payload.length);
+    ByteBuf source = Unpooled.wrappedBuffer(payload);
+    VelocityCompressor compressor = JavaVelocityCompressor.FACTORY
+        .create(Deflater.DEFAULT_COMPRESSION);
+    try {
+      compressor.deflate(source, frame);
+    } finally {
+      compressor.close();
+      source.release();
+    }
+    return frame;
+  }
+
+  @Test
+  void undecodedPacketIsPassedThroughCompressed() throws DataFormatException {
+    MinecraftDecoder minecraftDecoder = playDecoder();
+    MinecraftCompressDecoder decoder = new MinecraftCompressDecoder(THRESHOLD,
+        JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION));
+    decoder.setPassthroughDecoder(minecraftDecoder);
+    EmbeddedChannel channel = new EmbeddedChannel(decoder, minecraftDecoder);
+
+    ByteBuf frame = compressFrame(createPayload(findUndecodedPacketId(minecraftDecoder)));
+    byte[] expected = ByteBufUtil.getBytes(frame);
+    channel.writeInbound(frame);
+
+    CompressedPacket packet = assertInstanceOf(CompressedPacket.class, channel.readInbound());
+    try {
+      assertEquals(Unpooled.wrappedBuffer(expected), packet.content());
+    } finally {
+      packet.release();
+    }
+    assertNull(channel.readInbound());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void packetIsInflatedWithoutPassthrough() throws DataFormatException {
+    MinecraftDecoder minecraftDecoder = playDecoder();
+    MinecraftCompressDecoder decoder = new MinecraftCompressDecoder(THRESHOLD,
+        JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION));
+    EmbeddedChannel channel = new EmbeddedChannel(decoder, minecraftDecoder);
+
+    byte[] payload = createPayload(findUndecodedPacketId(minecraftDecoder));
+    channel.writeInbound(compressFrame(payload));
+
+    ByteBuf buf = assertInstanceOf(ByteBuf.class, channel.readInbound());
+    try {
+      assertEquals(Unpooled.wrappedBuffer(payload), buf);
+    } finally {
+      buf.release();
+    }
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void compressedPacketIsWrittenAsIs() throws DataFormatException {
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftCompressorAndLengthEncoder(
+        THRESHOLD, JavaVelocityCompressor.FACTORY.create(Deflater.DEFAULT_COMPRESSION)));
+
+    byte[] payload = createPayload(0);
+    ByteBuf frame = compressFrame(payload);
+    ByteBuf expected = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(expected, frame.readableBytes());
+    expected.writeBytes(frame, frame.readerIndex(), frame.readableBytes());
+    channel.writeOutbound(new CompressedPacket(frame, payload.length));
+
+    ByteBuf written = channel.readOutbound();
+    try {
+      assertEquals(expected, written);
+    } finally {
+      written.release();
+      expected.release();
+    }
+    channel.finishAndReleaseAll();
+  }
+}
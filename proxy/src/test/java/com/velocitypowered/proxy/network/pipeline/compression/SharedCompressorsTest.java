@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.compression;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.velocitypowered.natives.compression.VelocityCompressor;
+import com.velocitypowered.natives.util.MoreByteBufUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SharedCompressorsTest {
+
+  @AfterEach
+  void tearDown() {
+    SharedCompressors.release();
+  }
+
+  @Test
+  void compressorsAreSharedPerThreadAndLevel() throws Exception {
+    VelocityCompressor compressor = SharedCompressors.get(Deflater.DEFAULT_COMPRESSION);
+    assertSame(compressor, SharedCompressors.get(Deflater.DEFAULT_COMPRESSION));
+    assertNotSame(compressor, SharedCompressors.get(Deflater.BEST_COMPRESSION));
+
+    VelocityCompressor other = CompletableFuture.supplyAsync(() -> {
+      try {
+        return SharedCompressors.get(Deflater.DEFAULT_COMPRESSION);
+      } finally {
+        SharedCompressors.release();
+      }
+    }).get();
+    assertNotSame(compressor, other);
+  }
+
+  @Test
+  void closingSharedCompressorKeepsItUsable() throws Exception {
+    VelocityCompressor compressor = SharedCompressors.get(Deflater.DEFAULT_COMPRESSION);
+    compressor.close();
+
+    ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+    ByteBuf source = MoreByteBufUtils.preferredBuffer(alloc, compressor, 64);
+    ByteBuf compressed = MoreByteBufUtils.preferredBuffer(alloc, compressor, 64);
+    ByteBuf decompressed = MoreByteBufUtils.preferredBuffer(alloc, compressor, 64);
+    try {
+      for (int i = 0; i < 64; i++) {
+        source.writeByte(i % 4);
+      }
+      compressor.deflate(source.duplicate(), compressed);
+      compressor.inflate(compressed, decompressed, source.readableBytes());
+      assertEquals(source, decompressed);
+    } finally {
+      source.release();
+      compressed.release();
+      decompressed.release();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.encryption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.velocitypowered.natives.encryption.JavaVelocityCipher;
+import com.velocitypowered.natives.encryption.VelocityCipher;
+import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.security.GeneralSecurityException;
+import java.util.Random;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+class MinecraftCipherFrameDecoderTest {
+
+  private static final int[] LENGTHS = {1, 127, 128, 300, 5, 16383, 16384, 70000, 2, 9000};
+
+  private static SecretKey key() {
+    byte[] secret = new byte[16];
+    new Random(1).nextBytes(secret);
+    return new SecretKeySpec(secret, "AES");
+  }
+
+  private static ByteBuf encryptedFrames() throws GeneralSecurityException {
+    ByteBuf buf = Unpooled.buffer();
+    for (int length : LENGTHS) {
+      ProtocolUtils.writeVarInt(buf, length);
+      for (int i = 0; i < length; i++) {
+        buf.writeByte(i);
+      }
+    }
+    VelocityCipher cipher = JavaVelocityCipher.FACTORY.forEncryption(key());
+    cipher.process(buf);
+    cipher.close();
+    return buf;
+  }
+
+  private static void assertFrames(EmbeddedChannel channel) {
+    for (int length : LENGTHS) {
+      ByteBuf decoded = channel.readInbound();
+      try {
+        assertEquals(length, decoded.readableBytes());
+        for (int i = 0; i < length; i++) {
+          assertEquals((byte) i, decoded.getByte(decoded.readerIndex() + i));
+        }
+      } finally {
+        decoded.release();
+      }
+    }
+    assertNull(channel.readInbound());
+  }
+
+  private static void writeInChunks(EmbeddedChannel channel, ByteBuf stream, boolean direct) {
+    Random random = new Random(2);
+    while (stream.isReadable()) {
+      int chunk = Math.min(stream.readableBytes(), 1 + random.nextInt(4096));
+      ByteBuf in = direct ? Unpooled.directBuffer(chunk) : Unpooled.buffer(chunk);
+      in.writeBytes(stream, chunk);
+      channel.writeInbound(in);
+    }
+    stream.release();
+  }
+
+  @Test
+  void decryptsAndFramesWholeStream() throws GeneralSecurityException {
+    EmbeddedChannel channel = new EmbeddedChannel(
+        new MinecraftCipherFrameDecoder(JavaVelocityCipher.FACTORY.forDecryption(key())));
+    channel.writeInbound(encryptedFrames());
+    assertFrames(channel);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void decryptsAndFramesSplitHeapReads() throws GeneralSecurityException {
+    EmbeddedChannel channel = new EmbeddedChannel(
+        new MinecraftCipherFrameDecoder(JavaVelocityCipher.FACTORY.forDecryption(key())));
+    writeInChunks(channel, encryptedFrames(), false);
+    assertFrames(channel);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void decryptsAndFramesSplitDirectReads() throws GeneralSecurityException {
+    // The Java cipher needs heap buffers, so every direct read has to be copied first.
+    EmbeddedChannel channel = new EmbeddedChannel(
+        new MinecraftCipherFrameDecoder(JavaVelocityCipher.FACTORY.forDecryption(key())));
+    writeInChunks(channel, encryptedFrames(), true);
+    assertFrames(channel);
+    channel.finishAndReleaseAll();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.framing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.velocitypowered.proxy.network.protocol.ProtocolUtils;
+import com.velocitypowered.proxy.util.except.QuietDecoderException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+class MinecraftVarintFrameDecoderTest {
+
+  private static ByteBuf frame(int length) {
+    ByteBuf buf = Unpooled.buffer();
+    ProtocolUtils.writeVarInt(buf, length);
+    for (int i = 0; i < length; i++) {
+      buf.writeByte(i);
+    }
+    return buf;
+  }
+
+  private static void assertFrame(EmbeddedChannel channel, int length) {
+    ByteBuf decoded = channel.readInbound();
+    try {
+      assertEquals(length, decoded.readableBytes());
+      for (int i = 0; i < length; i++) {
+        assertEquals((byte) i, decoded.getByte(decoded.readerIndex() + i));
+      }
+    } finally {
+      decoded.release();
+    }
+  }
+
+  @Test
+  void decodesAllFramesInBuffer() {
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+    int[] lengths = {1, 127, 128, 300, 16383, 16384, 70000};
+    ByteBuf in = Unpooled.buffer();
+    for (int length : lengths) {
+      ByteBuf frame = frame(length);
+      in.writeBytes(frame);
+      frame.release();
+    }
+    channel.writeInbound(in);
+
+    for (int length : lengths) {
+      assertFrame(channel, length);
+    }
+    assertNull(channel.readInbound());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void waitsForSplitFrame() {
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+    ByteBuf frame = frame(20000);
+    // Split in the middle of the 3-byte length and then in the middle of the body.
+    channel.writeInbound(frame.readRetainedSlice(1));
+    assertNull(channel.readInbound());
+    channel.writeInbound(frame.readRetainedSlice(100));
+    assertNull(channel.readInbound());
+    channel.writeInbound(frame);
+    assertFrame(channel, 20000);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void skipsZeroes() {
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+    ByteBuf in = Unpooled.buffer();
+    in.writeZero(3);
+    in.writeByte(0x80).writeByte(0x00);
+    ByteBuf frame = frame(5);
+    in.writeBytes(frame);
+    frame.release();
+    channel.writeInbound(in);
+
+    assertFrame(channel, 5);
+    assertNull(channel.readInbound());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void rejectsTooBigVarInt() {
+    EmbeddedChannel channel = new EmbeddedChannel(new MinecraftVarintFrameDecoder());
+    ByteBuf in = Unpooled.buffer();
+    in.writeByte(0x80).writeByte(0x80).writeByte(0x80).writeByte(0x01);
+    assertThrows(QuietDecoderException.class, () -> channel.writeInbound(in));
+    channel.finishAndReleaseAll();
+  }
+}
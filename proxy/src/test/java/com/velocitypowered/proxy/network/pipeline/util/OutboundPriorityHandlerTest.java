@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.network.pipeline.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.velocitypowered.proxy.network.protocol.packet.Disconnect;
+import com.velocitypowered.proxy.network.protocol.packet.KeepAlive;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.nio.channels.ClosedChannelException;
+import org.junit.jupiter.api.Test;
+
+class OutboundPriorityHandlerTest {
+
+  private static void setWritable(EmbeddedChannel channel, boolean writable) {
+    channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+    channel.runPendingTasks();
+  }
+
+  private static void assertOutbound(EmbeddedChannel channel, Object expected) {
+    Object actual = channel.readOutbound();
+    assertSame(expected, actual);
+  }
+
+  @Test
+  void passesEverythingThroughWhenWritable() {
+    EmbeddedChannel channel = new EmbeddedChannel(new OutboundPriorityHandler());
+    ByteBuf bulk = Unpooled.buffer().writeByte(1);
+    KeepAlive keepAlive = new KeepAlive();
+    channel.writeAndFlush(bulk);
+    channel.writeAndFlush(keepAlive);
+
+    assertOutbound(channel, bulk);
+    assertOutbound(channel, keepAlive);
+    assertNull(channel.readOutbound());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void priorityPacketsOvertakeHeldBulkTraffic() {
+    EmbeddedChannel channel = new EmbeddedChannel(new OutboundPriorityHandler());
+    setWritable(channel, false);
+
+    ByteBuf first = Unpooled.buffer().writeByte(1);
+    ByteBuf second = Unpooled.buffer().writeByte(2);
+    KeepAlive keepAlive = new KeepAlive();
+    channel.write(first);
+    channel.write(keepAlive);
+    channel.write(second);
+    channel.flush();
+
+    assertOutbound(channel, keepAlive);
+    assertNull(channel.readOutbound());
+
+    setWritable(channel, true);
+    assertOutbound(channel, first);
+    assertOutbound(channel, second);
+    assertNull(channel.readOutbound());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void onlyKeepAlivesOvertake() {
+    EmbeddedChannel channel = new EmbeddedChannel(new OutboundPriorityHandler());
+    setWritable(channel, false);
+
+    ByteBuf first = Unpooled.buffer().writeByte(1);
+    Disconnect disconnect = new Disconnect();
+    channel.write(first);
+    channel.write(disconnect);
+    channel.flush();
+    assertNull(channel.readOutbound());
+
+    setWritable(channel, true);
+    assertOutbound(channel, first);
+    assertOutbound(channel, disconnect);
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void releaseHeldWritesIgnoresWritability() {
+    OutboundPriorityHandler handler = new OutboundPriorityHandler();
+    EmbeddedChannel channel = new EmbeddedChannel(handler);
+    setWritable(channel, false);
+
+    ByteBuf first = Unpooled.buffer().writeByte(1);
+    ByteBuf second = Unpooled.buffer().writeByte(2);
+    channel.writeAndFlush(first);
+    channel.writeAndFlush(second);
+    assertNull(channel.readOutbound());
+
+    // As happens right before the protocol state or compression changes
+    handler.releaseHeldWrites();
+    assertOutbound(channel, first);
+    assertOutbound(channel, second);
+    assertNull(channel.readOutbound());
+    channel.finishAndReleaseAll();
+  }
+
+  @Test
+  void heldWritesFailWhenChannelCloses() {
+    EmbeddedChannel channel = new EmbeddedChannel(new OutboundPriorityHandler());
+    setWritable(channel, false);
+
+    ByteBuf held = Unpooled.buffer().writeByte(1);
+    ChannelFuture future = channel.writeAndFlush(held);
+    assertFalse(future.isDone());
+
+    channel.close();
+    assertTrue(future.cause() instanceof ClosedChannelException);
+    assertEquals(0, held.refCnt());
+    channel.finishAndReleaseAll();
+  }
+}
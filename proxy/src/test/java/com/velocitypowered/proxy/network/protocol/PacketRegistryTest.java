@@ -155,4 +155,38 @@ class PacketRegistryTest {
     assertEquals(Handshake.class,
         registry.getProtocolRegistry(MINECRAFT_1_14_2).createPacket(0x02).getClass());
   }
-}
\ No newline at end of file
+
+  @Test
+  void compactedRegistryKeepsMappings() {
+    StateRegistry.PacketRegistry registry = setupRegistry();
+    registry.compact();
+    MinecraftPacket packet = registry.getProtocolRegistry(MINECRAFT_1_13).createPacket(0);
+    assertNotNull(packet, "Packet was not found in registry");
+    assertEquals(1, registry.getProtocolRegistry(MINECRAFT_1_8).getPacketId(packet));
+    assertEquals(0, registry.getProtocolRegistry(MINECRAFT_1_14).getPacketId(packet));
+    assertNull(registry.getProtocolRegistry(MINECRAFT_1_16_2).createPacket(0));
+    assertThrows(IllegalStateException.class,
+        () -> registry.register(StatusPing.class, StatusPing::new,
+            new StateRegistry.PacketMapping(0x02, MINECRAFT_1_8, null, false)));
+  }
+
+  @Test
+  void stateRegistryRoundTripsPacketIds() {
+    for (StateRegistry state : StateRegistry.values()) {
+      for (ProtocolUtils.Direction direction : ProtocolUtils.Direction.values()) {
+        for (ProtocolVersion version : ProtocolVersion.SUPPORTED_VERSIONS) {
+          StateRegistry.PacketRegistry.ProtocolRegistry protocolRegistry =
+              state.getProtocolRegistry(direction, version);
+          for (int id = 0; id < 0x80; id++) {
+            MinecraftPacket packet = protocolRegistry.createPacket(id);
+            if (packet != null) {
+              assertEquals(id, protocolRegistry.getPacketId(packet),
+                  "Wrong ID for " + packet.getClass().getSimpleName() + " in " + state + " "
+                      + direction + " " + version);
+            }
+          }
+        }
+      }
+    }
+  }
+}
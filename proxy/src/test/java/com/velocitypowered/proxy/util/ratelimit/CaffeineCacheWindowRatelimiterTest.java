@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2023 Velocity Contributors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.velocitypowered.proxy.util.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CaffeineCacheWindowRatelimiterTest {
+
+  @Test
+  void attemptWithinWindow() {
+    long base = System.nanoTime();
+    AtomicLong extra = new AtomicLong();
+    Ticker testTicker = () -> base + extra.get();
+    Ratelimiter ratelimiter = new CaffeineCacheWindowRatelimiter(2, 1000, TimeUnit.MILLISECONDS,
+        16, testTicker);
+    assertTrue(ratelimiter.attempt(InetAddress.getLoopbackAddress()));
+    assertTrue(ratelimiter.attempt(InetAddress.getLoopbackAddress()));
+    assertFalse(ratelimiter.attempt(InetAddress.getLoopbackAddress()));
+    extra.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    assertTrue(ratelimiter.attempt(InetAddress.getLoopbackAddress()));
+  }
+
+  @Test
+  void attemptTracksAddressesSeparately() throws UnknownHostException {
+    Ratelimiter ratelimiter = new CaffeineCacheWindowRatelimiter(1, 1000, TimeUnit.MILLISECONDS,
+        16);
+    assertTrue(ratelimiter.attempt(InetAddress.getByName("127.0.0.1")));
+    assertFalse(ratelimiter.attempt(InetAddress.getByName("127.0.0.1")));
+    assertTrue(ratelimiter.attempt(InetAddress.getByName("127.0.0.2")));
+  }
+
+  @Test
+  void disabledWithoutPermits() {
+    Ratelimiter ratelimiter = Ratelimiters.createWithPermits(0, 1000, 16);
+    assertTrue(ratelimiter.attempt(InetAddress.getLoopbackAddress()));
+    assertTrue(ratelimiter.attempt(InetAddress.getLoopbackAddress()));
+  }
+}